@@ -35,7 +35,9 @@ public class LoggerAspect {
         return result;
     }
 
-    @Pointcut("execution(* me.bsuir.easyattend..*.*(..))")
+    // cache calls sit on every read path; their counters are exposed via /api/cache instead
+    @Pointcut("execution(* me.bsuir.easyattend..*.*(..))"
+            + " && !within(me.bsuir.easyattend.utils..*)")
     public void methodsExecuted() {
     }
 
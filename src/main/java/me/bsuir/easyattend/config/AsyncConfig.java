@@ -1,6 +1,11 @@
 package me.bsuir.easyattend.config;
 
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -10,6 +15,8 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    public static final String EVENT_PURGE_EXECUTOR = "eventPurgeExecutor";
+
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
@@ -19,4 +26,33 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * The executor Spring Boot would auto-configure for {@code @Async} and async MVC
+     * requests. Boot backs off as soon as any executor bean is defined, so it is declared
+     * here next to {@link #eventPurgeExecutor()}.
+     */
+    @Lazy
+    @Bean(name = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+    })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Runs event purges one at a time, see {@code EventPurgeService}. Pending purges are
+     * dropped on shutdown; the events stay marked deleted and are scheduled again at the
+     * next startup.
+     */
+    @Bean(name = EVENT_PURGE_EXECUTOR)
+    public ThreadPoolTaskExecutor eventPurgeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("event-purge-");
+        executor.setDaemon(true);
+        return executor;
+    }
+}
@@ -1,18 +1,80 @@
-//package me.bsuir.easyattend.config;
-//
-//import java.util.List;
-//import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
-//import me.bsuir.easyattend.utils.InMemoryCache;
-//import org.springframework.context.annotation.Bean;
-//import org.springframework.context.annotation.Configuration;
-//
-//
-//@Configuration
-//public class CacheConfig {
-//
-//    @Bean
-//    public InMemoryCache<String, List<ConfirmedUserDto>> confirmedUsersCache() {
-//        return new InMemoryCache<>();
-//    }
-//
-//}
\ No newline at end of file
+package me.bsuir.easyattend.config;
+
+import java.util.List;
+import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.utils.DtoWeights;
+import me.bsuir.easyattend.utils.EntityIdKey;
+import me.bsuir.easyattend.utils.EventLastNameKey;
+import me.bsuir.easyattend.utils.IdempotentRegistration;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.InMemoryCache.EvictionPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Cache regions. Every region has its own TTL, capacity and eviction policy, so hot
+ * lookups are not pushed out by rarely repeated ones. Entries are grouped by event id.
+ *
+ * <p>Capacity is bounded both by entry count and by the estimated heap size of the
+ * cached lists ({@code maxWeight}), so a 20k-attendee event is not counted as one entry.
+ * Lists heavier than {@code maxEntryWeight} are served but never cached.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String CONFIRMED_USERS = "confirmedUsers";
+    public static final String FILTERED_REGISTRATION_STATUSES = "filteredRegistrationStatuses";
+    public static final String NOT_FOUND_IDS = "notFoundIds";
+    public static final String IDEMPOTENCY_KEYS = "idempotencyKeys";
+
+    @Bean
+    public InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache(
+            @Value("${cache.confirmedUsers.ttlMillis:${cache.ttlMillis:300000}}") long ttlMillis,
+            @Value("${cache.confirmedUsers.maxSize:${cache.maxSize:1000}}") int maxSize,
+            @Value("${cache.confirmedUsers.evictionPolicy:LRU}") EvictionPolicy evictionPolicy,
+            @Value("${cache.confirmedUsers.maxWeight:16MB}") DataSize maxWeight,
+            @Value("${cache.confirmedUsers.maxEntryWeight:4MB}") DataSize maxEntryWeight) {
+        return new InMemoryCache<>(CONFIRMED_USERS, ttlMillis, maxSize, evictionPolicy,
+                maxWeight.toBytes(), maxEntryWeight.toBytes(), DtoWeights::ofConfirmedUsers);
+    }
+
+    @Bean
+    public InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+            filteredRegistrationStatusesCache(
+            @Value("${cache.filteredRegistrationStatuses.ttlMillis:${cache.ttlMillis:300000}}")
+            long ttlMillis,
+            @Value("${cache.filteredRegistrationStatuses.maxSize:200}") int maxSize,
+            @Value("${cache.filteredRegistrationStatuses.evictionPolicy:FIFO}")
+            EvictionPolicy evictionPolicy,
+            @Value("${cache.filteredRegistrationStatuses.maxWeight:32MB}") DataSize maxWeight,
+            @Value("${cache.filteredRegistrationStatuses.maxEntryWeight:8MB}")
+            DataSize maxEntryWeight) {
+        return new InMemoryCache<>(FILTERED_REGISTRATION_STATUSES, ttlMillis, maxSize,
+                evictionPolicy, maxWeight.toBytes(), maxEntryWeight.toBytes(),
+                DtoWeights::ofRegistrationStatuses);
+    }
+
+    /**
+     * Negative lookups; short-lived because nothing but creation invalidates them.
+     */
+    @Bean
+    public InMemoryCache<EntityIdKey, Boolean> notFoundIdsCache(
+            @Value("${cache.notFoundIds.ttlMillis:30000}") long ttlMillis,
+            @Value("${cache.notFoundIds.maxSize:10000}") int maxSize) {
+        return new InMemoryCache<>(NOT_FOUND_IDS, ttlMillis, maxSize, EvictionPolicy.FIFO);
+    }
+
+    /**
+     * Responses to requests carrying an idempotency key; kept long enough to cover client
+     * retries, never invalidated.
+     */
+    @Bean
+    public InMemoryCache<String, IdempotentRegistration> idempotencyKeysCache(
+            @Value("${cache.idempotencyKeys.ttlMillis:86400000}") long ttlMillis,
+            @Value("${cache.idempotencyKeys.maxSize:10000}") int maxSize) {
+        return new InMemoryCache<>(IDEMPOTENCY_KEYS, ttlMillis, maxSize, EvictionPolicy.FIFO);
+    }
+}
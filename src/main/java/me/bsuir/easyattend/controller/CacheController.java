@@ -0,0 +1,73 @@
+package me.bsuir.easyattend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.utils.CacheStats;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Статистика кэша", description = "API для просмотра статистики областей кэша")
+public class CacheController {
+
+    private final List<InMemoryCache<?, ?>> caches;
+
+    @Autowired
+    public CacheController(List<InMemoryCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Получить статистику всех областей кэша",
+            description = "Возвращает попадания, промахи, время загрузки, вытеснения по причинам"
+                    + " и размер каждой области кэша")
+    @ApiResponse(
+            responseCode = "200", description = "Статистика кэша",
+            content = @Content(schema = @Schema(implementation = CacheStats.Snapshot.class)))
+    public ResponseEntity<List<CacheStats.Snapshot>> getAllStats() {
+        List<CacheStats.Snapshot> stats = caches.stream()
+                .map(InMemoryCache::stats)
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    @SuppressWarnings({"checkstyle:Indentation", "checkstyle:AnnotationLocation"})
+    @GetMapping("/{name}")
+    @Operation(
+            summary = "Получить статистику области кэша по имени",
+            description = "Возвращает статистику одной области кэша")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Статистика найдена",
+                            content = @Content(
+                                    schema = @Schema(implementation = CacheStats.Snapshot.class))),
+                    @ApiResponse(responseCode = "404", description = "Область кэша не найдена")
+            })
+    public ResponseEntity<CacheStats.Snapshot> getStats(
+            @Parameter(description = "Имя области кэша", example = "confirmedUsers", required = true)
+            @PathVariable String name
+    ) {
+        CacheStats.Snapshot stats = caches.stream()
+                .filter(cache -> cache.getName().equals(name))
+                .findFirst()
+                .map(InMemoryCache::stats)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Cache not found with name: " + name));
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -8,23 +8,33 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import me.bsuir.easyattend.annotation.Timed;
+import me.bsuir.easyattend.dto.create.AttendeeRemovalDto;
 import me.bsuir.easyattend.dto.create.EventCreateDto;
+import me.bsuir.easyattend.dto.create.EventPatchDto;
+import me.bsuir.easyattend.dto.get.AttendeeRemovalSummaryDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
 import me.bsuir.easyattend.dto.get.EventAttendeeDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.service.EventPurgeService;
 import me.bsuir.easyattend.service.EventService;
+import me.bsuir.easyattend.service.RegistrationStatusExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/events")
@@ -33,10 +43,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class EventController {
 
     private final EventService eventService;
+    private final RegistrationStatusExportService registrationStatusExportService;
+    private final EventPurgeService eventPurgeService;
 
     @Autowired
-    public EventController(EventService eventService) {
+    public EventController(
+            EventService eventService,
+            RegistrationStatusExportService registrationStatusExportService,
+            EventPurgeService eventPurgeService
+    ) {
         this.eventService = eventService;
+        this.registrationStatusExportService = registrationStatusExportService;
+        this.eventPurgeService = eventPurgeService;
     }
 
     @SuppressWarnings("checkstyle:Indentation")
@@ -61,13 +79,22 @@ public class EventController {
     }
 
     @GetMapping
-    @Operation(summary = "Получить все мероприятия",
-               description = "Возвращает список всех доступных мероприятий")
-    @ApiResponse(
-            responseCode = "200", description = "Список мероприятий",
-            content = @Content(schema = @Schema(implementation = EventGetDto.class)))
-    public ResponseEntity<List<EventGetDto>> getAllEvents() {
-        List<EventGetDto> events = eventService.getAllEvents();
+    @Operation(summary = "Получить мероприятия постранично",
+               description = "Возвращает страницу мероприятий, упорядоченных по дате и ID,"
+                       + " и курсор следующей страницы")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Страница мероприятий",
+                            content = @Content(schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы")
+            })
+    public ResponseEntity<CursorPage<EventGetDto>> getEvents(
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<EventGetDto> events = eventService.getEvents(cursor, size);
         return ResponseEntity.ok(events);
     }
 
@@ -112,6 +139,30 @@ public class EventController {
         return ResponseEntity.ok(updatedEvent);
     }
 
+    @SuppressWarnings("checkstyle:Indentation")
+    @PatchMapping("/{id}")
+    @Operation(summary = "Изменить отдельные поля мероприятия",
+               description = "Меняет только переданные поля одним условным UPDATE, если с"
+                       + " момента чтения версия мероприятия не изменилась")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Мероприятие изменено",
+                            content = @Content(schema = @Schema(
+                                    implementation = EventGetDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+                    @ApiResponse(responseCode = "404", description = "Мероприятие не найдено"),
+                    @ApiResponse(responseCode = "409",
+                                 description = "Мероприятие изменено другим запросом")
+            })
+    public ResponseEntity<EventGetDto> patchEvent(
+            @Parameter(description = "ID мероприятия", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Изменяемые поля и прочитанная версия", required = true)
+            @Valid @RequestBody EventPatchDto eventPatchDto) {
+        return ResponseEntity.ok(eventService.patchEvent(id, eventPatchDto));
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @DeleteMapping("/{eventId}/attendees/{userId}")
     @Operation(
@@ -132,38 +183,131 @@ public class EventController {
         return ResponseEntity.noContent().build();
     }
 
+    @SuppressWarnings("checkstyle:Indentation")
+    @PostMapping("/{eventId}/attendees/remove")
+    @Operation(
+            summary = "Удалить нескольких участников мероприятия",
+            description = "Удаляет одной операцией участников из списка userIds, участников"
+                    + " с указанным статусом или участников из списка с этим статусом")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Число удаленных участников",
+                            content = @Content(schema = @Schema(
+                                    implementation = AttendeeRemovalSummaryDto.class))),
+                    @ApiResponse(responseCode = "400",
+                                 description = "Не задан ни список пользователей, ни статус"),
+                    @ApiResponse(responseCode = "404", description = "Мероприятие не найдено")
+            })
+    public ResponseEntity<AttendeeRemovalSummaryDto> removeAttendeesFromEvent(
+            @Parameter(description = "ID мероприятия", required = true)
+            @PathVariable Long eventId,
+            @Parameter(description = "Каких участников удалить", required = true)
+            @Valid @RequestBody AttendeeRemovalDto request) {
+        return ResponseEntity.ok(eventService.removeAttendees(eventId, request));
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @GetMapping("/{id}/attendees")
     @Operation(
             summary = "Получить участников мероприятия",
-            description = "Возвращает список всех участников указанного мероприятия")
+            description = "Возвращает страницу участников мероприятия, упорядоченных по ID"
+                    + " пользователя. Следующая страница запрашивается с курсором nextCursor")
     @ApiResponses(
             value = {
                     @ApiResponse(
-                            responseCode = "200", description = "Список участников",
+                            responseCode = "200", description = "Страница участников",
                             content = @Content(schema = @Schema(
-                                    implementation = EventAttendeeDto.class))),
+                                    implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400",
+                                 description = "Некорректный курсор или размер страницы"),
                     @ApiResponse(responseCode = "404", description = "Мероприятие не найдено")
             })
-    public ResponseEntity<List<EventAttendeeDto>> getAttendeesByEventId(
+    public ResponseEntity<CursorPage<EventAttendeeDto>> getAttendeesByEventId(
             @Parameter(description = "ID мероприятия", required = true)
-            @PathVariable Long id) {
-        List<EventAttendeeDto> attendees = eventService.getAttendeesByEventId(id);
+            @PathVariable Long id,
+            @Parameter(description = "Статус регистрации участников", example = "CONFIRMED")
+            @RequestParam(required = false) RegistrationStatusType status,
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<EventAttendeeDto> attendees =
+                eventService.getAttendeesByEventId(id, status, cursor, size);
         return ResponseEntity.ok(attendees);
     }
 
+    @GetMapping(value = "/{id}/attendees", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Выгрузить участников мероприятия потоком",
+            description = "Отдает всех участников мероприятия в формате NDJSON по мере чтения"
+                    + " из базы данных; выбирается заголовком Accept: application/x-ndjson")
+    @ApiResponse(responseCode = "200", description = "Поток участников")
+    public ResponseEntity<StreamingResponseBody> exportAttendeesByEventId(
+            @Parameter(description = "ID мероприятия", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Статус регистрации участников", example = "CONFIRMED")
+            @RequestParam(required = false) RegistrationStatusType status) {
+        StreamingResponseBody body =
+                out -> registrationStatusExportService.exportAttendees(id, status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @DeleteMapping("/{id}")
-    @Operation(summary = "Удалить мероприятие", description = "Удаляет мероприятие с указанным ID")
+    @Operation(summary = "Удалить мероприятие",
+               description = "Помечает мероприятие с указанным ID удаленным и запускает фоновую"
+                       + " задачу удаления его регистраций. До начала задачи мероприятие"
+                       + " можно восстановить")
     @ApiResponses(
             value = {
-                    @ApiResponse(responseCode = "204", description = "Мероприятие успешно удалено"),
+                    @ApiResponse(responseCode = "202", description = "Мероприятие удалено,"
+                            + " возвращена задача очистки",
+                                 content = @Content(schema = @Schema(
+                                         implementation = EventPurgeService.PurgeTask.class))),
                     @ApiResponse(responseCode = "404", description = "Мероприятие не найдено")
             })
-    public ResponseEntity<Void> deleteEvent(
+    public ResponseEntity<EventPurgeService.PurgeTask> deleteEvent(
             @Parameter(description = "ID мероприятия для удаления", required = true)
             @PathVariable Long id) {
-        eventService.deleteEvent(id);
+        return ResponseEntity.accepted().body(eventService.deleteEvent(id));
+    }
+
+    @SuppressWarnings("checkstyle:Indentation")
+    @PostMapping("/{id}/restore")
+    @Operation(summary = "Восстановить удаленное мероприятие",
+               description = "Отменяет очистку удаленного мероприятия, если она еще не началась"
+                                 + " или завершилась ошибкой")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "204", description = "Мероприятие восстановлено"),
+                    @ApiResponse(responseCode = "400",
+                                 description = "Очистка мероприятия уже началась"),
+                    @ApiResponse(responseCode = "404",
+                                 description = "Удаленное мероприятие не найдено")
+            })
+    public ResponseEntity<Void> restoreEvent(
+            @Parameter(description = "ID удаленного мероприятия", required = true)
+            @PathVariable Long id) {
+        eventService.restoreEvent(id);
         return ResponseEntity.noContent().build();
     }
+
+    @SuppressWarnings("checkstyle:Indentation")
+    @GetMapping("/deletions/{taskId}")
+    @Operation(summary = "Получить статус очистки удаленного мероприятия")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Статус задачи возвращен",
+                                 content = @Content(schema = @Schema(
+                                         implementation = EventPurgeService.PurgeTask.class))),
+                    @ApiResponse(responseCode = "404", description = "Задача не найдена")
+            })
+    public ResponseEntity<EventPurgeService.PurgeTask> getDeletionStatus(
+            @Parameter(description = "ID задачи", required = true)
+            @PathVariable String taskId) {
+        return ResponseEntity.ok(eventPurgeService.getTask(taskId));
+    }
 }
\ No newline at end of file
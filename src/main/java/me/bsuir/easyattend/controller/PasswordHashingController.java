@@ -0,0 +1,39 @@
+package me.bsuir.easyattend.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import me.bsuir.easyattend.service.PasswordHashingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/password-hashing")
+@Tag(name = "Хеширование паролей", description = "API для просмотра статистики пула хеширования паролей")
+public class PasswordHashingController {
+
+    private final PasswordHashingService passwordHashingService;
+
+    @Autowired
+    public PasswordHashingController(PasswordHashingService passwordHashingService) {
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Получить статистику пула хеширования паролей",
+            description = "Возвращает размер пула и очереди, текущую стоимость BCrypt,"
+                    + " число хешей, отклонённых запросов и среднее время хеширования")
+    @ApiResponse(
+            responseCode = "200", description = "Статистика пула",
+            content = @Content(
+                    schema = @Schema(implementation = PasswordHashingService.Stats.class)))
+    public ResponseEntity<PasswordHashingService.Stats> getStats() {
+        return ResponseEntity.ok(passwordHashingService.stats());
+    }
+}
@@ -8,24 +8,36 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
+import me.bsuir.easyattend.dto.create.BulkRegistrationCreateDto;
 import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.create.RegistrationStatusPatchDto;
+import me.bsuir.easyattend.dto.get.BulkRegistrationSummaryDto;
 import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
 import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
+import me.bsuir.easyattend.service.RegistrationStatusBulkService;
+import me.bsuir.easyattend.service.RegistrationStatusExportService;
 import me.bsuir.easyattend.service.RegistrationStatusService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/registration-statuses")
@@ -35,10 +47,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class RegistrationStatusController {
 
     private final RegistrationStatusService registrationStatusService;
+    private final RegistrationStatusExportService registrationStatusExportService;
+    private final RegistrationStatusBulkService registrationStatusBulkService;
 
     @Autowired
-    public RegistrationStatusController(RegistrationStatusService registrationStatusService) {
+    public RegistrationStatusController(
+            RegistrationStatusService registrationStatusService,
+            RegistrationStatusExportService registrationStatusExportService,
+            RegistrationStatusBulkService registrationStatusBulkService
+    ) {
         this.registrationStatusService = registrationStatusService;
+        this.registrationStatusExportService = registrationStatusExportService;
+        this.registrationStatusBulkService = registrationStatusBulkService;
     }
 
     @SuppressWarnings("checkstyle:Indentation")
@@ -68,20 +88,30 @@ public class RegistrationStatusController {
     @GetMapping("/events-by-user/{userId}")
     @Operation(
             summary = "Получить мероприятия пользователя",
-            description = "Возвращает список мероприятий, на которые зарегистрирован пользователь")
+            description = "Возвращает список мероприятий, на которые зарегистрирован пользователь,"
+                    + " упорядоченный по дате; можно ограничить диапазоном дат [from, to)")
     @ApiResponses(
             value = {
                     @ApiResponse(
                             responseCode = "200", description = "Список мероприятий",
                             content = @Content(
                                     schema = @Schema(implementation = EventGetDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный диапазон дат"),
                     @ApiResponse(responseCode = "404", description = "Пользователь не найден")
             })
     public ResponseEntity<List<EventGetDto>> getEventsByUserId(
             @Parameter(description = "ID пользователя", required = true)
-            @PathVariable Long userId
+            @PathVariable Long userId,
+            @Parameter(description = "Начало диапазона дат (включительно)",
+                    example = "2025-05-01T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Конец диапазона дат (не включительно)",
+                    example = "2025-06-01T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
     ) {
-        List<EventGetDto> events = registrationStatusService.getEventsByUserId(userId);
+        List<EventGetDto> events = registrationStatusService.getEventsByUserId(userId, from, to);
         return ResponseEntity.ok(events);
     }
 
@@ -121,32 +151,81 @@ public class RegistrationStatusController {
         return ResponseEntity.ok(registrationStatuses);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Выгрузить все статусы регистрации потоком",
+            description = "Отдает статусы регистрации в формате NDJSON (по одному JSON-объекту"
+                    + " на строку) по мере чтения из базы данных; выбирается заголовком"
+                    + " Accept: application/x-ndjson")
+    @ApiResponse(responseCode = "200", description = "Поток статусов регистрации")
+    public ResponseEntity<StreamingResponseBody> exportRegistrationStatuses() {
+        StreamingResponseBody body = registrationStatusExportService::exportAll;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @PostMapping
     @Operation(
             summary = "Создать новый статус регистрации",
-            description = "Создает новую запись о статусе регистрации пользователя на мероприятие")
+            description = "Регистрирует пользователя на мероприятие или переводит существующую"
+                    + " регистрацию в указанный статус. Повторный запрос ничего не меняет;"
+                    + " с заголовком Idempotency-Key повтор возвращает первый ответ")
     @ApiResponses(
             value = {
                     @ApiResponse(
                             responseCode = "201", description = "Статус регистрации успешно создан",
                             content = @Content(
                                     schema = @Schema(
-                                            implementation = RegistrationStatusGetDto.class))),
-                    @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+                                            implementation = RegistrationStatusRefDto.class))),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Некорректные данные или Idempotency-Key уже"
+                                    + " использован для другого запроса"),
                     @ApiResponse(
                             responseCode = "404",
                             description = "Пользователь или мероприятие не найдены")
             })
-    public ResponseEntity<RegistrationStatusGetDto> createRegistrationStatus(
+    public ResponseEntity<RegistrationStatusRefDto> createRegistrationStatus(
             @Parameter(description = "Данные для создания статуса регистрации", required = true)
-            @Valid @RequestBody RegistrationStatusCreateDto registrationStatusCreateDto
+            @Valid @RequestBody RegistrationStatusCreateDto registrationStatusCreateDto,
+            @Parameter(description = "Ключ идемпотентности для безопасного повтора запроса")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        RegistrationStatusGetDto createdRegistrationStatus
-                = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto);
+        RegistrationStatusRefDto createdRegistrationStatus
+                = registrationStatusService.createRegistrationStatus(
+                        registrationStatusCreateDto, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdRegistrationStatus);
     }
 
+    @SuppressWarnings("checkstyle:Indentation")
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Зарегистрировать нескольких пользователей на мероприятие",
+            description = "Создает статусы регистрации для списка пользователей одной операцией."
+                    + " Уже зарегистрированные и повторяющиеся пользователи пропускаются,"
+                    + " несуществующие перечисляются в ответе")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Итоги регистрации",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = BulkRegistrationSummaryDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+                    @ApiResponse(responseCode = "404", description = "Мероприятие не найдено")
+            })
+    public ResponseEntity<BulkRegistrationSummaryDto> createRegistrationStatusesBulk(
+            @Parameter(description = "Мероприятие и список пользователей со статусами",
+                    required = true)
+            @Valid @RequestBody BulkRegistrationCreateDto bulkRegistrationCreateDto
+    ) {
+        BulkRegistrationSummaryDto summary =
+                registrationStatusBulkService.registerAll(bulkRegistrationCreateDto);
+        return ResponseEntity.ok(summary);
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @PutMapping("/{id}")
     @Operation(
@@ -159,22 +238,55 @@ public class RegistrationStatusController {
                             description = "Статус регистрации успешно обновлен",
                             content = @Content(
                                     schema = @Schema(
-                                            implementation = RegistrationStatusGetDto.class))),
+                                            implementation = RegistrationStatusRefDto.class))),
                     @ApiResponse(responseCode = "400", description = "Некорректные данные"),
-                    @ApiResponse(responseCode = "404", description = "Статус регистрации не найден")
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Статус регистрации, пользователь или мероприятие"
+                                    + " не найдены")
             })
-    public ResponseEntity<RegistrationStatusGetDto> updateRegistrationStatus(
+    public ResponseEntity<RegistrationStatusRefDto> updateRegistrationStatus(
             @Parameter(description = "ID статуса регистрации для обновления", required = true)
             @PathVariable Long id,
             @Parameter(description = "Обновленные данные статуса регистрации", required = true)
             @Valid @RequestBody RegistrationStatusCreateDto registrationStatusCreateDto
     ) {
-        RegistrationStatusGetDto updatedRegistrationStatus
+        RegistrationStatusRefDto updatedRegistrationStatus
                 = registrationStatusService.updateRegistrationStatus(
                 id, registrationStatusCreateDto);
         return ResponseEntity.ok(updatedRegistrationStatus);
     }
 
+    @SuppressWarnings("checkstyle:Indentation")
+    @PatchMapping("/{id}")
+    @Operation(
+            summary = "Изменить статус регистрации",
+            description = "Меняет статус регистрации одним условным UPDATE, если с момента"
+                    + " чтения версия регистрации не изменилась")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Статус регистрации изменен",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = RegistrationStatusRefDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+                    @ApiResponse(responseCode = "404",
+                                 description = "Статус регистрации не найден"),
+                    @ApiResponse(responseCode = "409",
+                                 description = "Регистрация изменена другим запросом")
+            })
+    public ResponseEntity<RegistrationStatusRefDto> patchRegistrationStatus(
+            @Parameter(description = "ID статуса регистрации", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Новый статус и прочитанная версия", required = true)
+            @Valid @RequestBody RegistrationStatusPatchDto registrationStatusPatchDto
+    ) {
+        return ResponseEntity.ok(
+                registrationStatusService.patchRegistrationStatus(id, registrationStatusPatchDto));
+    }
+
     @SuppressWarnings("checkstyle:Indentation")
     @DeleteMapping("/{id}")
     @Operation(
@@ -10,6 +10,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
 import me.bsuir.easyattend.dto.create.UserCreateDto;
+import me.bsuir.easyattend.dto.create.UserPatchDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
+import me.bsuir.easyattend.dto.get.UserBulkResultDto;
 import me.bsuir.easyattend.dto.get.UserGetDto;
 import me.bsuir.easyattend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,13 +54,22 @@ public class UserController {
 
     @GetMapping
     @Operation(
-            summary = "Получить всех пользователей",
-            description = "Возвращает список всех зарегистрированных пользователей системы")
-    @ApiResponse(
-            responseCode = "200", description = "Список пользователей",
-            content = @Content(schema = @Schema(implementation = UserGetDto.class)))
-    public ResponseEntity<List<UserGetDto>> getAllUsers() {
-        List<UserGetDto> users = userService.getAllUsers();
+            summary = "Получить пользователей постранично",
+            description = "Возвращает страницу пользователей, упорядоченных по ID,"
+                    + " и курсор следующей страницы")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200", description = "Страница пользователей",
+                            content = @Content(schema = @Schema(implementation = CursorPage.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор или размер страницы")
+            })
+    public ResponseEntity<CursorPage<UserGetDto>> getUsers(
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<UserGetDto> users = userService.getUsers(cursor, size);
         return ResponseEntity.ok(users);
     }
 
@@ -85,24 +97,18 @@ public class UserController {
     @PostMapping("/bulk")
     @Operation(
             summary = "Создать несколько пользователей",
-            description = "Регистрирует несколько новых пользователей в системе в одной операции")
-    @ApiResponses(
-            value = {
-                    @ApiResponse(
-                            responseCode = "201", description = "Пользователи успешно созданы",
-                            content = @Content(
-                                    schema = @Schema(implementation = UserGetDto.class))),
-                    @ApiResponse(
-                            responseCode = "400", description = "Некорректные данные пользователей"),
-                    @ApiResponse(
-                            responseCode = "404", description = "Одна или несколько ролей не найдены")
-            })
-    public ResponseEntity<List<UserGetDto>> createUsersBulk(
+            description = "Регистрирует несколько новых пользователей в системе в одной операции."
+                    + " Ошибочные строки не отменяют остальные: для каждой строки возвращается"
+                    + " созданный пользователь или причина ошибки")
+    @ApiResponse(
+            responseCode = "200", description = "Результат по каждой строке запроса",
+            content = @Content(schema = @Schema(implementation = UserBulkResultDto.class)))
+    public ResponseEntity<List<UserBulkResultDto>> createUsersBulk(
             @Parameter(description = "Список данных для создания пользователей", required = true)
             @Valid @RequestBody List<UserCreateDto> userCreateDtos
     ) {
-        List<UserGetDto> createdUsers = userService.createUsersBulk(userCreateDtos);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdUsers);
+        List<UserBulkResultDto> results = userService.createUsersBulk(userCreateDtos);
+        return ResponseEntity.ok(results);
     }
 
     @PutMapping("/{id}")
@@ -129,6 +135,32 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    @PatchMapping("/{id}")
+    @Operation(
+            summary = "Изменить отдельные данные пользователя",
+            description = "Меняет только переданные поля одним условным UPDATE, если с момента"
+                    + " чтения версия пользователя не изменилась")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Данные пользователя изменены",
+                            content = @Content(
+                                    schema = @Schema(implementation = UserGetDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+                    @ApiResponse(responseCode = "404", description = "Пользователь не найден"),
+                    @ApiResponse(responseCode = "409", description = "Пользователь изменен"
+                            + " другим запросом, или имя пользователя уже занято")
+            })
+    public ResponseEntity<UserGetDto> patchUser(
+            @Parameter(description = "ID пользователя", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Изменяемые поля и прочитанная версия", required = true)
+            @Valid @RequestBody UserPatchDto userPatchDto
+    ) {
+        return ResponseEntity.ok(userService.patchUser(id, userPatchDto));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(
             summary = "Удалить пользователя",
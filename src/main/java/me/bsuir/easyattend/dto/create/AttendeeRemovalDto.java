@@ -0,0 +1,30 @@
+package me.bsuir.easyattend.dto.create;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Which attendees of an event to remove: the listed users, those with the status, or the
+ * listed users that have the status. At least one of the two must be given.
+ */
+@Getter
+@Setter
+public class AttendeeRemovalDto {
+
+    public static final int MAX_USER_IDS = 10_000;
+
+    @Size(max = MAX_USER_IDS, message = "No more than " + MAX_USER_IDS + " users per request")
+    private List<Long> userIds;
+
+    private String status;
+
+    @JsonIgnore
+    @AssertTrue(message = "Either userIds or status must be given")
+    public boolean isFiltered() {
+        return (userIds != null && !userIds.isEmpty()) || status != null;
+    }
+}
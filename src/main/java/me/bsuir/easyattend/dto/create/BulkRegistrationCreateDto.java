@@ -0,0 +1,35 @@
+package me.bsuir.easyattend.dto.create;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkRegistrationCreateDto {
+
+    public static final int MAX_REGISTRATIONS = 10_000;
+
+    @NotNull(message = "Event ID cannot be null")
+    private Long eventId;
+
+    @NotEmpty(message = "Registrations cannot be empty")
+    @Size(max = MAX_REGISTRATIONS,
+            message = "No more than " + MAX_REGISTRATIONS + " registrations per request")
+    private List<@Valid Registration> registrations;
+
+    @Getter
+    @Setter
+    public static class Registration {
+
+        @NotNull(message = "User ID cannot be null")
+        private Long userId;
+
+        @NotNull(message = "Status cannot be null")
+        private String status;
+    }
+}
@@ -3,6 +3,7 @@ package me.bsuir.easyattend.dto.create;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
@@ -23,6 +24,10 @@ public class EventCreateDto {
 
     private String location;
 
+    // null: no limit
+    @Positive(message = "Capacity must be positive")
+    private Integer capacity;
+
     @NotNull(message = "Organizer ID cannot be null")
     private Long organizerId;
 }
\ No newline at end of file
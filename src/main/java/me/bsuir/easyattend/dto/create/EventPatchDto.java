@@ -0,0 +1,44 @@
+package me.bsuir.easyattend.dto.create;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Fields of an event to change; a null field is left as it is. Applied only if the event
+ * is still at {@code version}. The organizer is changed, and the capacity removed, with a
+ * full update.
+ */
+@Getter
+@Setter
+public class EventPatchDto {
+
+    @NotNull(message = "Version cannot be null")
+    private Long version;
+
+    @Pattern(regexp = ".*\\S.*", message = "Title cannot be blank")
+    private String title;
+
+    private String description;
+
+    @Future(message = "Event date must be in the future")
+    private LocalDateTime eventDate;
+
+    private String location;
+
+    @Positive(message = "Capacity must be positive")
+    private Integer capacity;
+
+    @JsonIgnore
+    @AssertTrue(message = "Nothing to change")
+    public boolean isChanging() {
+        return title != null || description != null || eventDate != null
+                || location != null || capacity != null;
+    }
+}
@@ -0,0 +1,20 @@
+package me.bsuir.easyattend.dto.create;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * New status of a registration, applied only if the registration is still at
+ * {@code version}.
+ */
+@Getter
+@Setter
+public class RegistrationStatusPatchDto {
+
+    @NotNull(message = "Status cannot be null")
+    private String status;
+
+    @NotNull(message = "Version cannot be null")
+    private Long version;
+}
@@ -0,0 +1,43 @@
+package me.bsuir.easyattend.dto.create;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Fields of a user to change; a null field is left as it is. Applied only if the user is
+ * still at {@code version}. Roles are changed with a full update.
+ */
+@Getter
+@Setter
+public class UserPatchDto {
+
+    @NotNull(message = "Version cannot be null")
+    private Long version;
+
+    @Size(min = 4, max = 20, message = "Username must be between 4 and 20 characters")
+    private String username;
+
+    @Size(min = 8, message = "Password must be at least 8 characters")
+    private String password;
+
+    @Email(message = "Invalid email format")
+    private String email;
+
+    @Size(max = 50, message = "First name cannot be longer than 50 characters")
+    private String firstName;
+
+    @Size(max = 50, message = "Last name cannot be longer than 50 characters")
+    private String lastName;
+
+    @JsonIgnore
+    @AssertTrue(message = "Nothing to change")
+    public boolean isChanging() {
+        return username != null || password != null || email != null
+                || firstName != null || lastName != null;
+    }
+}
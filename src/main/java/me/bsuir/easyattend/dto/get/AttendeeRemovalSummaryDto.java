@@ -0,0 +1,15 @@
+package me.bsuir.easyattend.dto.get;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendeeRemovalSummaryDto {
+    private Long eventId;
+    private long removed;
+}
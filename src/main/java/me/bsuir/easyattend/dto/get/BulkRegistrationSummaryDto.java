@@ -0,0 +1,24 @@
+package me.bsuir.easyattend.dto.get;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of a bulk registration. Every requested row is counted in exactly one of
+ * {@code created}, {@code duplicates} (already registered, or repeated in the request)
+ * and {@code unknownUserIds}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegistrationSummaryDto {
+    private Long eventId;
+    private int requested;
+    private int created;
+    private int duplicates;
+    private List<Long> unknownUserIds;
+}
@@ -0,0 +1,16 @@
+package me.bsuir.easyattend.dto.get;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is opaque to clients and
+ * is {@code null} on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+}
@@ -17,5 +17,13 @@ public class EventGetDto {
     private String description;
     private LocalDateTime eventDate;
     private String location;
+    private Integer capacity;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int confirmedCount;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     private UserGetDto organizer;
 }
\ No newline at end of file
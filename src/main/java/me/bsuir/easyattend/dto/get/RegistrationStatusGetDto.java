@@ -17,4 +17,7 @@ public class RegistrationStatusGetDto {
     private UserGetDto user;
     private String status; // Or use enum RegistrationStatusType
     private LocalDateTime statusDate;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package me.bsuir.easyattend.dto.get;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Registration as returned by writes. The event and the user are given by id only, so
+ * the response is built without loading them.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationStatusRefDto {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+
+    private Long eventId;
+    private Long userId;
+    private String status;
+    private LocalDateTime statusDate;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+}
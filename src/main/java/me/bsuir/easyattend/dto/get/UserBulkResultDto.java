@@ -0,0 +1,30 @@
+package me.bsuir.easyattend.dto.get;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of one row of a bulk user import. {@code index} is the position of the row in
+ * the request; exactly one of {@code user} and {@code error} is set.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkResultDto {
+    private int index;
+    private String username;
+    private boolean created;
+    private UserGetDto user;
+    private String error;
+
+    public static UserBulkResultDto created(int index, UserGetDto user) {
+        return new UserBulkResultDto(index, user.getUsername(), true, user, null);
+    }
+
+    public static UserBulkResultDto failed(int index, String username, String error) {
+        return new UserBulkResultDto(index, username, false, null, error);
+    }
+}
@@ -19,4 +19,7 @@ public class UserGetDto {
     private String lastName;
     private LocalDateTime registrationDate;
     private Set<RoleGetDto> roles;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
 }
\ No newline at end of file
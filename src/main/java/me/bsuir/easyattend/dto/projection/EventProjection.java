@@ -0,0 +1,51 @@
+package me.bsuir.easyattend.dto.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event with its organizer, selected in one row of a join.
+ */
+public record EventProjection(
+        Long id,
+        String title,
+        String description,
+        LocalDateTime eventDate,
+        String location,
+        Integer capacity,
+        int confirmedCount,
+        long version,
+        UserProjection organizer
+) {
+
+    /**
+     * Flat form for JPQL {@code SELECT new}, which cannot build the nested organizer.
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public EventProjection(
+            Long id,
+            String title,
+            String description,
+            LocalDateTime eventDate,
+            String location,
+            Integer capacity,
+            Integer confirmedCount,
+            Long version,
+            Long organizerId,
+            String organizerUsername,
+            String organizerEmail,
+            String organizerFirstName,
+            String organizerLastName,
+            LocalDateTime organizerRegistrationDate,
+            Long organizerVersion
+    ) {
+        this(id, title, description, eventDate, location, capacity, confirmedCount, version,
+                new UserProjection(
+                        organizerId,
+                        organizerUsername,
+                        organizerEmail,
+                        organizerFirstName,
+                        organizerLastName,
+                        organizerRegistrationDate,
+                        organizerVersion));
+    }
+}
@@ -0,0 +1,77 @@
+package me.bsuir.easyattend.dto.projection;
+
+import java.time.LocalDateTime;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+
+/**
+ * A registration status with its event, the event's organizer and the user, selected in
+ * one row of a join. Roles are not part of the row.
+ */
+public record RegistrationStatusProjection(
+        Long id,
+        RegistrationStatusType status,
+        LocalDateTime statusDate,
+        long version,
+        EventProjection event,
+        UserProjection user
+) {
+
+    /**
+     * Flat form for JPQL {@code SELECT new}, which cannot build the nested event and user.
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    public RegistrationStatusProjection(
+            Long id,
+            RegistrationStatusType status,
+            LocalDateTime statusDate,
+            Long version,
+            Long eventId,
+            String eventTitle,
+            String eventDescription,
+            LocalDateTime eventDate,
+            String eventLocation,
+            Integer eventCapacity,
+            Integer eventConfirmedCount,
+            Long eventVersion,
+            Long organizerId,
+            String organizerUsername,
+            String organizerEmail,
+            String organizerFirstName,
+            String organizerLastName,
+            LocalDateTime organizerRegistrationDate,
+            Long organizerVersion,
+            Long userId,
+            String username,
+            String userEmail,
+            String userFirstName,
+            String userLastName,
+            LocalDateTime userRegistrationDate,
+            Long userVersion
+    ) {
+        this(id, status, statusDate, version,
+                new EventProjection(
+                        eventId,
+                        eventTitle,
+                        eventDescription,
+                        eventDate,
+                        eventLocation,
+                        eventCapacity,
+                        eventConfirmedCount,
+                        eventVersion,
+                        organizerId,
+                        organizerUsername,
+                        organizerEmail,
+                        organizerFirstName,
+                        organizerLastName,
+                        organizerRegistrationDate,
+                        organizerVersion),
+                new UserProjection(
+                        userId,
+                        username,
+                        userEmail,
+                        userFirstName,
+                        userLastName,
+                        userRegistrationDate,
+                        userVersion));
+    }
+}
@@ -0,0 +1,17 @@
+package me.bsuir.easyattend.dto.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * The user columns exposed by the API; never the password hash.
+ */
+public record UserProjection(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        LocalDateTime registrationDate,
+        Long version
+) {
+}
@@ -0,0 +1,9 @@
+package me.bsuir.easyattend.dto.projection;
+
+import me.bsuir.easyattend.model.RoleType;
+
+/**
+ * One role of the user {@code userId}.
+ */
+public record UserRoleProjection(Long userId, Long id, RoleType name) {
+}
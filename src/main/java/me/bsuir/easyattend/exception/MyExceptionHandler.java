@@ -5,6 +5,8 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -43,6 +45,25 @@ public class MyExceptionHandler {
         return buildErrorResponse("Resource not found", ex, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler({OptimisticLockingFailureException.class, DuplicateEntityException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> handleConflictException(RuntimeException ex) {
+        return buildErrorResponse("Conflict", ex, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> handleServiceOverloadedException(
+            ServiceOverloadedException ex) {
+        ResponseEntity<Map<String, String>> response = buildErrorResponse(
+                "Service overloaded", ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -1,7 +1,12 @@
 package me.bsuir.easyattend.exception;
 
+/**
+ * Thrown for missing entities and mapped to 404. Created without a stack trace: it is
+ * an expected outcome of a lookup, never logged with one, and filling it in dominated
+ * the cost of a 404.
+ */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,7 @@
+package me.bsuir.easyattend.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -23,7 +23,7 @@ public class LoggingAspect {
     @AfterReturning(pointcut = "execution(* me.bsuir.easyattend.controller.*.*(..))")
     public void logVisit(JoinPoint joinPoint) {
         String url = "/api/" + joinPoint.getSignature().getDeclaringType().getSimpleName().replace("Controller", "").toLowerCase();
-        if (!url.startsWith("/api/logs") && !url.startsWith("/api/visits")) {
+        if (!url.startsWith("/api/logs") && !url.startsWith("/api/visits") && !url.startsWith("/api/cache")) {
             visitCounter.incrementVisit(url);
             logger.info("Visit recorded for URL: {}", url);
         }
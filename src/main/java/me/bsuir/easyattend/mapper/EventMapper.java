@@ -2,6 +2,7 @@ package me.bsuir.easyattend.mapper;
 
 import me.bsuir.easyattend.dto.create.EventCreateDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.projection.EventProjection;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.model.Event;
 import me.bsuir.easyattend.model.User;
@@ -22,14 +23,23 @@ public abstract class EventMapper {
     protected UserRepository userRepository;
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "confirmedCount", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(source = "organizerId", target = "organizer")
     public abstract Event toEntity(EventCreateDto dto);
 
     @Mapping(source = "organizer", target = "organizer", qualifiedByName = "userToUserGetDto")
     public abstract EventGetDto toDto(Event entity);
 
+    public abstract EventGetDto toDto(EventProjection event);
+
+    // EventService resolves the organizer, and only when it changes
     @Mapping(target = "id", ignore = true)
-    @Mapping(source = "organizerId", target = "organizer")
+    @Mapping(target = "confirmedCount", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "organizer", ignore = true)
     public abstract void updateEventFromDto(EventCreateDto dto, @MappingTarget Event entity);
 
     protected User userFromId(Long organizerId) {
@@ -2,6 +2,7 @@ package me.bsuir.easyattend.mapper;
 
 import me.bsuir.easyattend.dto.create.RoleCreateDto;
 import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.projection.UserRoleProjection;
 import me.bsuir.easyattend.model.Role;
 import me.bsuir.easyattend.model.RoleType;
 import org.mapstruct.Mapper;
@@ -20,6 +21,8 @@ public interface RoleMapper {
 
     RoleGetDto toDto(Role entity);
 
+    RoleGetDto toDto(UserRoleProjection role);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "users", ignore = true)
     void updateRoleFromDto(RoleCreateDto dto, @MappingTarget Role entity);
@@ -2,6 +2,7 @@ package me.bsuir.easyattend.mapper;
 
 import me.bsuir.easyattend.dto.create.UserCreateDto;
 import me.bsuir.easyattend.dto.get.UserGetDto;
+import me.bsuir.easyattend.dto.projection.UserProjection;
 import me.bsuir.easyattend.model.User;
 import me.bsuir.easyattend.repository.UserRepository;
 import org.mapstruct.Mapper;
@@ -21,6 +22,7 @@ public abstract class UserMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "version", ignore = true)
     public abstract User toEntity(UserCreateDto userCreateDto);
 
     @Mapping(source = "id", target = "id")
@@ -32,8 +34,13 @@ public abstract class UserMapper {
     @Mapping(source = "roles", target = "roles")
     public abstract UserGetDto toDto(User user);
 
+    // roles come from a separate query, see RoleService.getRolesByUserIds
+    @Mapping(target = "roles", ignore = true)
+    public abstract UserGetDto toDto(UserProjection user);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "version", ignore = true)
     public abstract void updateUserFromDto(UserCreateDto dto, @MappingTarget User entity);
 
     @Named("userToUserGetDto")
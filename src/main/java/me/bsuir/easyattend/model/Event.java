@@ -6,17 +6,24 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Check;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.SQLRestriction;
 
 @Getter
 @Setter
@@ -24,11 +31,21 @@ import org.hibernate.annotations.OnDeleteAction;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_event_date_id", columnList = "event_date, id")
+})
+@Check(name = "chk_events_seats",
+        constraints = "confirmed_count >= 0 AND (capacity IS NULL OR confirmed_count <= capacity)")
+// confirmedCount is changed only by UPDATE statements of SeatAllocator; writing changed
+// columns only keeps an edit of the event from overwriting it with a stale value
+@DynamicUpdate
+// deleted events are invisible to every entity query until they are restored or purged
+@SQLRestriction("deleted_at IS NULL")
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -36,11 +53,33 @@ public class Event {
 
     private String description;
 
-    @Column(nullable = false)
+    @Column(name = "event_date", nullable = false)
     private LocalDateTime eventDate;
 
     private String location;
 
+    /**
+     * Seats for CONFIRMED registrations; {@code null} means unlimited.
+     */
+    private Integer capacity;
+
+    @ColumnDefault("0")
+    @Column(name = "confirmed_count", nullable = false)
+    private int confirmedCount;
+
+    /**
+     * Set when the event is deleted. The row stays, and can be restored, until
+     * {@code EventPurgeService} has purged its registrations and then the event itself.
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // the seat counter UPDATEs leave it alone, so registrations never fail an edit
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "organizer_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -6,18 +6,27 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -27,20 +36,57 @@ import org.hibernate.annotations.OnDeleteAction;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "registration_statuses")
+@Table(name = "registration_statuses", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_registration_statuses_event_user",
+                columnNames = {"event_id", "user_id"})
+}, indexes = {
+        @Index(name = "idx_registration_statuses_user_id", columnList = "user_id"),
+        @Index(name = "idx_registration_statuses_event_status_user",
+                columnList = "event_id, status, user_id"),
+        @Index(name = "idx_registration_statuses_event_status_date",
+                columnList = "event_id, status, status_date, id")
+})
+@NamedEntityGraph(
+        name = RegistrationStatus.WITH_EVENT_AND_USER,
+        attributeNodes = {
+                @NamedAttributeNode(value = "event", subgraph = "event"),
+                @NamedAttributeNode(value = "user", subgraph = "user")
+        },
+        subgraphs = {
+                @NamedSubgraph(
+                        name = "event",
+                        attributeNodes = @NamedAttributeNode(
+                                value = "organizer", subgraph = "user")),
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("roles"))
+        })
 public class RegistrationStatus {
 
+    /**
+     * Everything {@code RegistrationStatusMapper.toDto} reads, fetched in one query.
+     */
+    public static final String WITH_EVENT_AND_USER = "RegistrationStatus.withEventAndUser";
+
+    /**
+     * Foreign key names; writes tell a missing event from a missing user by them.
+     */
+    public static final String FK_EVENT = "fk_registration_statuses_event";
+    public static final String FK_USER = "fk_registration_statuses_user";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "registration_statuses_seq")
+    @SequenceGenerator(
+            name = "registration_statuses_seq",
+            sequenceName = "registration_statuses_seq",
+            allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "event_id", nullable = false)
+    @JoinColumn(name = "event_id", nullable = false, foreignKey = @ForeignKey(name = FK_EVENT))
     @OnDelete(action = OnDeleteAction.CASCADE) // Add this
     private Event event;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = FK_USER))
     @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
 
@@ -50,4 +96,10 @@ public class RegistrationStatus {
 
     @Column(nullable = false)
     private LocalDateTime statusDate;
+
+    // the statements of RegistrationStatusRepository that change the status bump it too
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
\ No newline at end of file
@@ -11,7 +11,10 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import java.util.Set;
 import lombok.AllArgsConstructor;
@@ -19,6 +22,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 @Getter
 @Setter
@@ -26,14 +31,22 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString(exclude = {"roles", "organizedEvents"})
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.UK_USERNAME, columnNames = "username")
+})
 public class User {
 
+    /**
+     * Name of the unique key on the username; a write violating it took a used username.
+     */
+    public static final String UK_USERNAME = "uk_users_username";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled ids: one nextval per 50 inserts, and inserts can be sent as JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true)
     private String username;
 
     private String password;
@@ -46,6 +59,13 @@ public class User {
 
     private LocalDateTime registrationDate;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // pages of users load their roles in a few IN queries instead of one per user
+    @BatchSize(size = 64)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_roles",
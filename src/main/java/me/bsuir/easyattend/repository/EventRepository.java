@@ -1,12 +1,171 @@
 package me.bsuir.easyattend.repository;
 
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import me.bsuir.easyattend.dto.projection.EventProjection;
 import me.bsuir.easyattend.model.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+    String EVENT_PROJECTION = "SELECT new me.bsuir.easyattend.dto.projection.EventProjection("
+            + "e.id, e.title, e.description, e.eventDate, e.location, "
+            + "e.capacity, e.confirmedCount, e.version, "
+            + "o.id, o.username, o.email, o.firstName, o.lastName, o.registrationDate, "
+            + "o.version) "
+            + "FROM Event e JOIN e.organizer o ";
+
     List<Event> findByOrganizerId(Long organizerId);
 
-}
\ No newline at end of file
+    /**
+     * Takes one seat if the event has a free one. The row lock this takes is held only
+     * until the calling transaction ends, so registrations to other events never wait.
+     *
+     * @return 1 if a seat was taken, 0 if the event is full or does not exist
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Event e SET e.confirmedCount = e.confirmedCount + 1 "
+            + "WHERE e.id = :id AND (e.capacity IS NULL OR e.confirmedCount < e.capacity)")
+    int takeSeat(@Param("id") Long id);
+
+    /**
+     * Takes {@code seats} seats unconditionally; the caller checked the capacity under
+     * {@link #findByIdForUpdate}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Event e SET e.confirmedCount = e.confirmedCount + :seats WHERE e.id = :id")
+    int takeSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Event e SET e.confirmedCount = e.confirmedCount - :seats "
+            + "WHERE e.id = :id AND e.confirmedCount >= :seats")
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    // deleted events are filtered out of entity queries, so these are native
+
+    /**
+     * @return 1 if the event was marked deleted, 0 if it does not exist or is deleted already
+     */
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "UPDATE events SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL")
+    int markDeleted(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Clears the deletion mark. The seat counter is recounted, as a failed purge may have
+     * deleted some of the registrations already.
+     *
+     * @return 1 if the event was restored, 0 if it does not exist or is not deleted
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE events SET deleted_at = NULL, "
+            + "confirmed_count = (SELECT COUNT(*) FROM registration_statuses "
+            + "WHERE event_id = :id AND status = 'CONFIRMED') "
+            + "WHERE id = :id AND deleted_at IS NOT NULL")
+    int restore(@Param("id") Long id);
+
+    /**
+     * Deletes the event row if it is still marked deleted, in a transaction of its own.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "DELETE FROM events WHERE id = :id AND deleted_at IS NOT NULL")
+    int purge(@Param("id") Long id);
+
+    @Query(nativeQuery = true, value = "SELECT id AS \"id\", deleted_at AS \"deletedAt\" "
+            + "FROM events WHERE deleted_at IS NOT NULL")
+    List<Deleted> findDeleted();
+
+    interface Deleted {
+        Long getId();
+
+        LocalDateTime getDeletedAt();
+    }
+
+    /**
+     * Applies the non-null fields to the event if it is still at {@code version}, in one
+     * statement and without loading it. Nothing is written, and nothing returned, when
+     * the version is stale, the event does not exist or is deleted, or {@code capacity} is
+     * below the seats already confirmed.
+     */
+    @Query(nativeQuery = true, value = "WITH previous AS ("
+            + "SELECT capacity FROM events WHERE id = :id) "
+            + "UPDATE events e SET "
+            + "title = COALESCE(CAST(:title AS varchar), e.title), "
+            + "description = COALESCE(CAST(:description AS varchar), e.description), "
+            + "event_date = COALESCE(CAST(:eventDate AS timestamp), e.event_date), "
+            + "location = COALESCE(CAST(:location AS varchar), e.location), "
+            + "capacity = COALESCE(CAST(:capacity AS integer), e.capacity), "
+            + "version = e.version + 1 "
+            + "WHERE e.id = :id AND e.version = :version AND e.deleted_at IS NULL "
+            + "AND (CAST(:capacity AS integer) IS NULL OR e.confirmed_count <= :capacity) "
+            + "RETURNING (SELECT capacity FROM previous) AS \"previousCapacity\", "
+            + "e.capacity AS \"capacity\", e.confirmed_count AS \"confirmedCount\"")
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    Optional<Patched> patch(
+            @Param("id") Long id,
+            @Param("version") long version,
+            @Param("title") String title,
+            @Param("description") String description,
+            @Param("eventDate") LocalDateTime eventDate,
+            @Param("location") String location,
+            @Param("capacity") Integer capacity);
+
+    interface Patched {
+        Integer getPreviousCapacity();
+
+        Integer getCapacity();
+
+        int getConfirmedCount();
+    }
+
+    @Query("SELECT e.version FROM Event e WHERE e.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id = :id")
+    Optional<Event> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Events the user is registered to, with the organizer and its roles fetched in the
+     * same statement. A null bound leaves that side of the range open.
+     */
+    @Query("SELECT e FROM Event e "
+            + "JOIN FETCH e.organizer o "
+            + "LEFT JOIN FETCH o.roles "
+            + "WHERE e.id IN ("
+            + "SELECT rs.event.id FROM RegistrationStatus rs WHERE rs.user.id = :userId) "
+            + "AND (CAST(:from AS LocalDateTime) IS NULL OR e.eventDate >= :from) "
+            + "AND (CAST(:to AS LocalDateTime) IS NULL OR e.eventDate < :to) "
+            + "ORDER BY e.eventDate, e.id")
+    List<Event> findByAttendeeId(
+            @Param("userId") Long userId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query(EVENT_PROJECTION + "WHERE e.id = :id")
+    Optional<EventProjection> findProjectionById(@Param("id") Long id);
+
+    @Query(EVENT_PROJECTION + "ORDER BY e.eventDate, e.id")
+    List<EventProjection> findFirstPage(Pageable pageable);
+
+    // the leading >= bounds the index range scan on (event_date, id)
+    @Query(EVENT_PROJECTION
+            + "WHERE e.eventDate >= :eventDate "
+            + "AND (e.eventDate > :eventDate OR e.id > :id) "
+            + "ORDER BY e.eventDate, e.id")
+    List<EventProjection> findPageAfter(
+            @Param("eventDate") LocalDateTime eventDate,
+            @Param("id") Long id,
+            Pageable pageable);
+}
@@ -1,27 +1,283 @@
 package me.bsuir.easyattend.repository;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
+import me.bsuir.easyattend.dto.get.EventAttendeeDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
+import me.bsuir.easyattend.dto.projection.RegistrationStatusProjection;
 import me.bsuir.easyattend.model.RegistrationStatus;
-import me.bsuir.easyattend.model.User;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface RegistrationStatusRepository extends JpaRepository<RegistrationStatus, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
+    @Override
+    @EntityGraph(RegistrationStatus.WITH_EVENT_AND_USER)
+    List<RegistrationStatus> findAll();
+
+    @EntityGraph(RegistrationStatus.WITH_EVENT_AND_USER)
     List<RegistrationStatus> findByUserId(Long userId);
 
+    @EntityGraph(RegistrationStatus.WITH_EVENT_AND_USER)
     List<RegistrationStatus> findByEventId(Long eventId);
 
-    @Query("SELECT rs.user FROM RegistrationStatus rs WHERE rs.event.id = :eventId")
-    List<User> findUsersByEventId(@Param("eventId") Long eventId);
+    String ATTENDEES = "SELECT new me.bsuir.easyattend.dto.get.EventAttendeeDto("
+            + "u.id, u.username, u.firstName, u.lastName) "
+            + "FROM RegistrationStatus rs JOIN rs.user u "
+            + "WHERE rs.event.id = :eventId "
+            + "AND (:status IS NULL OR rs.status = :status) ";
+
+    /**
+     * Attendees of the event with a user id above {@code afterUserId}, by user id. With a
+     * status this is a range scan of idx_registration_statuses_event_status_user.
+     */
+    @Query(ATTENDEES + "AND u.id > :afterUserId ORDER BY u.id")
+    List<EventAttendeeDto> findAttendeePage(
+            @Param("eventId") Long eventId,
+            @Param("status") RegistrationStatusType status,
+            @Param("afterUserId") Long afterUserId,
+            Pageable pageable);
+
+    /**
+     * Same rows as {@link #findAttendeePage} without a limit, read through a JDBC cursor.
+     * Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(ATTENDEES + "ORDER BY u.id")
+    Stream<EventAttendeeDto> streamAttendees(
+            @Param("eventId") Long eventId,
+            @Param("status") RegistrationStatusType status);
+
+    @Query("SELECT rs.user.id FROM RegistrationStatus rs "
+            + "WHERE rs.event.id = :eventId AND rs.user.id IN :userIds")
+    List<Long> findRegisteredUserIds(
+            @Param("eventId") Long eventId,
+            @Param("userIds") Collection<Long> userIds);
+
+    Optional<RegistrationStatus> findByEventIdAndUserId(Long eventId, Long userId);
+
+    /**
+     * Registers each of {@code userIds} to the event with the status at the same position
+     * of {@code statuses}, in one statement. Users already registered, for instance by a
+     * concurrent single registration, are skipped instead of failing the statement. Ids
+     * are taken from the sequence like in {@link #upsert}.
+     *
+     * @return the statuses of the registrations inserted
+     */
+    @Query(nativeQuery = true, value = "INSERT INTO registration_statuses "
+            + "(id, event_id, user_id, status, status_date, version) "
+            + "SELECT nextval('registration_statuses_seq'), :eventId, r.user_id, r.status, "
+            + ":statusDate, 0 "
+            + "FROM unnest(CAST(:userIds AS bigint[]), CAST(:statuses AS varchar[])) "
+            + "AS r(user_id, status) "
+            + "ON CONFLICT (event_id, user_id) DO NOTHING "
+            + "RETURNING status")
+    List<String> insertAll(
+            @Param("eventId") Long eventId,
+            @Param("userIds") Long[] userIds,
+            @Param("statuses") String[] statuses,
+            @Param("statusDate") LocalDateTime statusDate);
+
+    /**
+     * Registers the user to the event with {@code status}, or moves the existing
+     * registration to it, in one statement. Nothing is written, and nothing returned,
+     * when the registration already has that status, which makes repeating the call free,
+     * or when the event is marked deleted.
+     * A missing event or user violates {@link RegistrationStatus#FK_EVENT} or
+     * {@link RegistrationStatus#FK_USER}. Each inserted row takes a whole sequence value as
+     * its id; the pooled generator never hands out a value fetched by someone else.
+     */
+    @Query(nativeQuery = true, value = "WITH previous AS ("
+            + "SELECT status, status_date FROM registration_statuses "
+            + "WHERE event_id = :eventId AND user_id = :userId) "
+            + "INSERT INTO registration_statuses AS rs "
+            + "(id, event_id, user_id, status, status_date, version) "
+            + "SELECT nextval('registration_statuses_seq'), :eventId, :userId, :status, "
+            + "LOCALTIMESTAMP, 0 "
+            + "WHERE NOT EXISTS ("
+            + "SELECT 1 FROM events WHERE id = :eventId AND deleted_at IS NOT NULL) "
+            + "ON CONFLICT (event_id, user_id) DO UPDATE "
+            + "SET status = EXCLUDED.status, status_date = EXCLUDED.status_date, "
+            + "version = rs.version + 1 "
+            + "WHERE rs.status <> EXCLUDED.status "
+            + "RETURNING rs.id AS \"id\", rs.status_date AS \"statusDate\", "
+            + "rs.version AS \"version\", (rs.xmax = 0) AS \"inserted\", "
+            + "(SELECT status FROM previous) AS \"previousStatus\", "
+            + "(SELECT status_date FROM previous) AS \"previousStatusDate\", "
+            + "(SELECT last_name FROM users WHERE id = :userId) AS \"lastName\"")
+    Optional<Upsert> upsert(
+            @Param("eventId") Long eventId,
+            @Param("userId") Long userId,
+            @Param("status") String status);
+
+    /**
+     * Outcome of {@link #upsert}. The previous status is read from the statement snapshot,
+     * so it is null for a registration committed concurrently while the upsert waited.
+     */
+    interface Upsert {
+        Long getId();
+
+        LocalDateTime getStatusDate();
+
+        long getVersion();
+
+        boolean isInserted();
+
+        String getPreviousStatus();
+
+        LocalDateTime getPreviousStatusDate();
 
+        String getLastName();
+    }
+
+    /**
+     * Moves the registration to {@code status} if it is still at {@code version}, in one
+     * statement and without loading it. Nothing is written, and nothing returned, when the
+     * version is stale, the registration does not exist or it already has the status.
+     * The previous status is exact: the row cannot have changed since the snapshot
+     * without its version changing too.
+     */
+    @Query(nativeQuery = true, value = "WITH previous AS ("
+            + "SELECT status, status_date FROM registration_statuses WHERE id = :id) "
+            + "UPDATE registration_statuses rs "
+            + "SET status = :status, status_date = LOCALTIMESTAMP, version = rs.version + 1 "
+            + "WHERE rs.id = :id AND rs.version = :version AND rs.status <> :status "
+            + "RETURNING rs.id AS \"id\", rs.event_id AS \"eventId\", rs.user_id AS \"userId\", "
+            + "rs.status_date AS \"statusDate\", rs.version AS \"version\", "
+            + "false AS \"inserted\", "
+            + "(SELECT status FROM previous) AS \"previousStatus\", "
+            + "(SELECT status_date FROM previous) AS \"previousStatusDate\", "
+            + "(SELECT last_name FROM users WHERE id = rs.user_id) AS \"lastName\"")
+    Optional<StatusChange> changeStatus(
+            @Param("id") Long id,
+            @Param("status") String status,
+            @Param("version") long version);
+
+    /**
+     * Outcome of {@link #changeStatus}; the registration is given by id only.
+     */
+    interface StatusChange extends Upsert {
+        Long getEventId();
+
+        Long getUserId();
+    }
+
+    String REF = "SELECT new me.bsuir.easyattend.dto.get.RegistrationStatusRefDto("
+            + "rs.id, rs.event.id, rs.user.id, CAST(rs.status AS String), rs.statusDate, "
+            + "rs.version) "
+            + "FROM RegistrationStatus rs ";
+
+    @Query(REF + "WHERE rs.event.id = :eventId AND rs.user.id = :userId")
+    Optional<RegistrationStatusRefDto> findRefByEventIdAndUserId(
+            @Param("eventId") Long eventId,
+            @Param("userId") Long userId);
+
+    @Query(REF + "WHERE rs.id = :id")
+    Optional<RegistrationStatusRefDto> findRefById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<RegistrationStatus> findWithUserById(Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE RegistrationStatus rs SET rs.status = :status, rs.statusDate = :statusDate, "
+            + "rs.version = rs.version + 1 WHERE rs.id = :id")
+    int updateStatus(
+            @Param("id") Long id,
+            @Param("status") RegistrationStatusType status,
+            @Param("statusDate") LocalDateTime statusDate);
+
+    /**
+     * Confirms up to {@code limit} of the oldest WAITING_LIST registrations of the event.
+     * Rows another transaction is already promoting are skipped rather than waited for,
+     * so concurrent cancellations promote different registrations.
+     *
+     * @return number of registrations promoted
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = "UPDATE registration_statuses "
+            + "SET status = 'CONFIRMED', status_date = LOCALTIMESTAMP, version = version + 1 "
+            + "WHERE id IN (SELECT id FROM registration_statuses "
+            + "WHERE event_id = :eventId AND status = 'WAITING_LIST' "
+            + "ORDER BY status_date, id LIMIT :limit FOR UPDATE SKIP LOCKED)")
+    int promoteWaiting(@Param("eventId") Long eventId, @Param("limit") int limit);
+
+    /**
+     * Deletes up to {@code limit} registrations of an event that is marked deleted, in a
+     * transaction of its own so that each batch holds its locks only briefly. Nothing is
+     * deleted once the event has been restored.
+     *
+     * @return the number of registrations deleted; less than {@code limit} on the last batch
+     */
     @Transactional
-    void deleteByEventIdAndUserId(Long eventId, Long userId);
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM registration_statuses WHERE id IN ("
+            + "SELECT rs.id FROM registration_statuses rs "
+            + "JOIN events e ON e.id = rs.event_id "
+            + "WHERE rs.event_id = :eventId AND e.deleted_at IS NOT NULL "
+            + "LIMIT :limit)")
+    int purgeBatch(@Param("eventId") Long eventId, @Param("limit") int limit);
+
+    String DELETE_ATTENDEES = "WITH removed AS ("
+            + "DELETE FROM registration_statuses WHERE event_id = :eventId ";
+    String COUNT_REMOVED = "RETURNING status) "
+            + "SELECT COUNT(*) AS \"removed\", "
+            + "COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS \"confirmed\" FROM removed";
 
+    /**
+     * Deletes the registrations of the listed users to the event, only those with
+     * {@code status} if it is not null, in one statement.
+     *
+     * <p>Not {@link Modifying}: Spring Data only allows that for void and int results, and
+     * the counts come from the RETURNING rows of a data-modifying CTE run as a query.
+     * Callers flush the persistence context before and clear it after, as
+     * {@code @Modifying(flushAutomatically = true, clearAutomatically = true)} would.
+     */
+    @Query(nativeQuery = true, value = DELETE_ATTENDEES
+            + "AND user_id IN (:userIds) "
+            + "AND (CAST(:status AS varchar) IS NULL OR status = :status) "
+            + COUNT_REMOVED)
+    Removal deleteAttendees(
+            @Param("eventId") Long eventId,
+            @Param("userIds") Collection<Long> userIds,
+            @Param("status") String status);
+
+    /**
+     * Deletes the registrations to the event with {@code status}; see {@link #deleteAttendees}.
+     */
+    @Query(nativeQuery = true, value = DELETE_ATTENDEES + "AND status = :status " + COUNT_REMOVED)
+    Removal deleteAttendeesByStatus(
+            @Param("eventId") Long eventId,
+            @Param("status") String status);
+
+    /**
+     * How many registrations a delete removed, and how many of them held a seat.
+     */
+    interface Removal {
+        long getRemoved();
+
+        long getConfirmed();
+    }
+
+    @EntityGraph(RegistrationStatus.WITH_EVENT_AND_USER)
     @Query("SELECT rs FROM RegistrationStatus rs "
             + "WHERE rs.event.id = :eventId AND rs.user.lastName LIKE %:lastName%")
     List<RegistrationStatus> findByEventIdAndUserLastName(
@@ -40,4 +296,28 @@ public interface RegistrationStatusRepository extends JpaRepository<Registration
             @Param("eventId") Long eventId,
             @Param("lastName") String lastName
     );
+
+    /**
+     * All statuses with their event, organizer and user as flat rows, read through a JDBC
+     * cursor of {@link #EXPORT_FETCH_SIZE} rows. No entity is loaded, so there is nothing
+     * to clear while scrolling; roles come from a separate query, see
+     * {@code RoleService.getRolesByUserIds}. Must be consumed and closed inside a
+     * transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new me.bsuir.easyattend.dto.projection.RegistrationStatusProjection("
+            + "rs.id, rs.status, rs.statusDate, rs.version, "
+            + "e.id, e.title, e.description, e.eventDate, e.location, "
+            + "e.capacity, e.confirmedCount, e.version, "
+            + "o.id, o.username, o.email, o.firstName, o.lastName, o.registrationDate, "
+            + "o.version, "
+            + "u.id, u.username, u.email, u.firstName, u.lastName, u.registrationDate, "
+            + "u.version) "
+            + "FROM RegistrationStatus rs "
+            + "JOIN rs.event e JOIN e.organizer o JOIN rs.user u "
+            + "ORDER BY rs.id")
+    Stream<RegistrationStatusProjection> streamAll();
 }
\ No newline at end of file
@@ -1,13 +1,22 @@
 package me.bsuir.easyattend.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import me.bsuir.easyattend.dto.projection.UserRoleProjection;
 import me.bsuir.easyattend.model.Role;
 import me.bsuir.easyattend.model.RoleType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
     Optional<Role> findByName(RoleType name); // Change parameter type to RoleType
-}
\ No newline at end of file
+
+    @Query("SELECT new me.bsuir.easyattend.dto.projection.UserRoleProjection(u.id, r.id, r.name) "
+            + "FROM User u JOIN u.roles r WHERE u.id IN :userIds")
+    List<UserRoleProjection> findRolesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
@@ -1,12 +1,70 @@
 package me.bsuir.easyattend.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import me.bsuir.easyattend.dto.projection.UserProjection;
 import me.bsuir.easyattend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    String USER_PROJECTION = "SELECT new me.bsuir.easyattend.dto.projection.UserProjection("
+            + "u.id, u.username, u.email, u.firstName, u.lastName, u.registrationDate, "
+            + "u.version) ";
+
     Optional<User> findByUsername(String username); // Use Optional
-}
\ No newline at end of file
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Applies the non-null fields to the user if it is still at {@code version}, in one
+     * statement and without loading it. Nothing is written, and nothing returned, when
+     * the version is stale or the user does not exist. {@code password} is the hash.
+     */
+    @Query(nativeQuery = true, value = "WITH previous AS ("
+            + "SELECT last_name FROM users WHERE id = :id) "
+            + "UPDATE users u SET "
+            + "username = COALESCE(CAST(:username AS varchar), u.username), "
+            + "password = COALESCE(CAST(:password AS varchar), u.password), "
+            + "email = COALESCE(CAST(:email AS varchar), u.email), "
+            + "first_name = COALESCE(CAST(:firstName AS varchar), u.first_name), "
+            + "last_name = COALESCE(CAST(:lastName AS varchar), u.last_name), "
+            + "version = u.version + 1 "
+            + "WHERE u.id = :id AND u.version = :version "
+            + "RETURNING (SELECT last_name FROM previous) AS \"previousLastName\", "
+            + "u.last_name AS \"lastName\"")
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    Optional<Patched> patch(
+            @Param("id") Long id,
+            @Param("version") long version,
+            @Param("username") String username,
+            @Param("password") String password,
+            @Param("email") String email,
+            @Param("firstName") String firstName,
+            @Param("lastName") String lastName);
+
+    interface Patched {
+        String getPreviousLastName();
+
+        String getLastName();
+    }
+
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(USER_PROJECTION + "FROM User u WHERE u.id = :id")
+    Optional<UserProjection> findProjectionById(@Param("id") Long id);
+
+    @Query(USER_PROJECTION + "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserProjection> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,230 @@
+package me.bsuir.easyattend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import me.bsuir.easyattend.config.AsyncConfig;
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.repository.EventRepository;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import me.bsuir.easyattend.utils.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Purges deleted events in the background. Once the grace period after the deletion has
+ * passed, the registrations of the event are deleted in batches of {@code batchSize}, each
+ * in a short transaction of its own, and then the event row. Until the purge starts the
+ * event can be restored, and so can an event whose purge failed. Purges run one at a time
+ * on the {@link AsyncConfig#EVENT_PURGE_EXECUTOR} executor. Like {@code LogService}, the
+ * tasks are kept in memory; finished ones are forgotten {@code taskRetention} after they
+ * end. Events that are still marked deleted at startup are scheduled again.
+ */
+@Service
+public class EventPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventPurgeService.class);
+
+    private final EventRepository eventRepository;
+    private final RegistrationStatusRepository registrationStatusRepository;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Duration taskRetention;
+    private final Executor executor;
+    private final ConcurrentHashMap<String, PurgeTask> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PurgeTask> pendingByEvent = new ConcurrentHashMap<>();
+
+    public EventPurgeService(
+            EventRepository eventRepository,
+            RegistrationStatusRepository registrationStatusRepository,
+            RegistrationCacheInvalidator registrationCacheInvalidator,
+            @Value("${events.purge.grace-period:10m}") Duration gracePeriod,
+            @Value("${events.purge.batch-size:1000}") int batchSize,
+            @Value("${events.purge.task-retention:1h}") Duration taskRetention,
+            @Qualifier(AsyncConfig.EVENT_PURGE_EXECUTOR) Executor executor
+    ) {
+        this.eventRepository = eventRepository;
+        this.registrationStatusRepository = registrationStatusRepository;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.taskRetention = taskRetention;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedules the purge of an event marked deleted at {@code deletedAt} for the end of
+     * its grace period. The task is registered and queued only once the current
+     * transaction commits, so a rolled back deletion leaves nothing behind.
+     */
+    public PurgeTask schedule(Long eventId, LocalDateTime deletedAt) {
+        PurgeTask task = new PurgeTask(
+                UUID.randomUUID().toString(), eventId, deletedAt.plus(gracePeriod));
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                tasks.put(task.getTaskId(), task);
+                pendingByEvent.put(eventId, task);
+                submit(task);
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Cancels the pending or failed purge of an event so that it can be restored. The task
+     * is held back from starting right away, but it is cancelled only once the current
+     * transaction commits; if the restore rolls back, the purge goes ahead.
+     *
+     * @throws ResourceNotFoundException if the event is not waiting to be purged
+     * @throws IllegalArgumentException if the purge has already started
+     */
+    public void cancel(Long eventId) {
+        PurgeTask task = pendingByEvent.get(eventId);
+        if (task == null) {
+            throw new ResourceNotFoundException("Deleted event not found with id " + eventId);
+        }
+        String previous = task.getStatus();
+        boolean restorable =
+                PurgeTask.PENDING.equals(previous) || PurgeTask.FAILED.equals(previous);
+        if (!restorable || !task.status.compareAndSet(previous, PurgeTask.RESTORING)) {
+            throw new IllegalArgumentException(
+                    "Event " + eventId + " is already being purged or restored");
+        }
+        TransactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                task.status.set(PurgeTask.CANCELLED);
+                pendingByEvent.remove(eventId, task);
+                expire(task);
+            } else {
+                task.status.set(previous);
+                if (PurgeTask.PENDING.equals(previous)) {
+                    // its run may have come and gone while the restore was in progress
+                    submit(task);
+                }
+            }
+        });
+    }
+
+    public PurgeTask getTask(String taskId) {
+        PurgeTask task = tasks.get(taskId);
+        if (task == null) {
+            throw new ResourceNotFoundException("Purge task not found with id " + taskId);
+        }
+        return task;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumePendingPurges() {
+        for (EventRepository.Deleted deleted : eventRepository.findDeleted()) {
+            schedule(deleted.getId(), deleted.getDeletedAt());
+        }
+    }
+
+    private void submit(PurgeTask task) {
+        Duration delay = Duration.between(LocalDateTime.now(), task.getPurgeAt());
+        after(Math.max(0, delay.toMillis())).execute(() -> run(task));
+    }
+
+    /**
+     * Forgets a task that has ended once {@code taskRetention} has passed.
+     */
+    private void expire(PurgeTask task) {
+        after(taskRetention.toMillis()).execute(() -> tasks.remove(task.getTaskId(), task));
+    }
+
+    private Executor after(long delayMillis) {
+        return delayMillis == 0
+                ? executor
+                : CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor);
+    }
+
+    private void run(PurgeTask task) {
+        if (!task.status.compareAndSet(PurgeTask.PENDING, PurgeTask.IN_PROGRESS)) {
+            return; // being restored, or already purged by an earlier run
+        }
+        Long eventId = task.getEventId();
+        logger.info("Task {} is purging event {}", task.getTaskId(), eventId);
+        try {
+            int deleted;
+            do {
+                deleted = registrationStatusRepository.purgeBatch(eventId, batchSize);
+                task.purgedRegistrations.addAndGet(deleted);
+            } while (deleted == batchSize);
+            eventRepository.purge(eventId);
+            registrationCacheInvalidator.eventChanged(eventId);
+            task.status.set(PurgeTask.COMPLETED);
+            pendingByEvent.remove(eventId, task);
+            expire(task);
+            logger.info("Task {} purged event {} with {} registrations",
+                    task.getTaskId(), eventId, task.getPurgedRegistrations());
+        } catch (RuntimeException e) {
+            // the event stays marked deleted: it can be restored, or is purged again at
+            // the next startup
+            task.errorMessage = e.getMessage();
+            task.status.set(PurgeTask.FAILED);
+            logger.error("Task {} failed to purge event {}", task.getTaskId(), eventId, e);
+        }
+    }
+
+    public static class PurgeTask {
+        static final String PENDING = "PENDING";
+        static final String IN_PROGRESS = "IN_PROGRESS";
+        static final String COMPLETED = "COMPLETED";
+        static final String FAILED = "FAILED";
+        static final String RESTORING = "RESTORING";
+        static final String CANCELLED = "CANCELLED";
+
+        private final String taskId;
+        private final Long eventId;
+        private final LocalDateTime purgeAt;
+        private final AtomicReference<String> status = new AtomicReference<>(PENDING);
+        private final AtomicLong purgedRegistrations = new AtomicLong();
+        private volatile String errorMessage;
+
+        PurgeTask(String taskId, Long eventId, LocalDateTime purgeAt) {
+            this.taskId = taskId;
+            this.eventId = eventId;
+            this.purgeAt = purgeAt;
+        }
+
+        public String getTaskId() {
+            return taskId;
+        }
+
+        public Long getEventId() {
+            return eventId;
+        }
+
+        /**
+         * When the purge starts; the event can be restored until then, or after the purge
+         * failed.
+         */
+        public LocalDateTime getPurgeAt() {
+            return purgeAt;
+        }
+
+        public String getStatus() {
+            return status.get();
+        }
+
+        public long getPurgedRegistrations() {
+            return purgedRegistrations.get();
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package me.bsuir.easyattend.service;
 
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import me.bsuir.easyattend.dto.create.AttendeeRemovalDto;
 import me.bsuir.easyattend.dto.create.EventCreateDto;
+import me.bsuir.easyattend.dto.create.EventPatchDto;
+import me.bsuir.easyattend.dto.get.AttendeeRemovalSummaryDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
 import me.bsuir.easyattend.dto.get.EventAttendeeDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.projection.EventProjection;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.EventMapper;
 import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatusType;
 import me.bsuir.easyattend.model.User;
 import me.bsuir.easyattend.repository.EventRepository;
 import me.bsuir.easyattend.repository.RegistrationStatusRepository;
 import me.bsuir.easyattend.repository.UserRepository;
-import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,8 +38,13 @@ public class EventService {
     private final EventMapper eventMapper;
     private final RegistrationStatusRepository registrationStatusRepository;
     private final UserRepository userRepository;
-    private final InMemoryCache<String, Object> inMemoryCache;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
     private final RegistrationStatusService registrationStatusService;
+    private final MissingIdCache missingIdCache;
+    private final RoleService roleService;
+    private final SeatAllocator seatAllocator;
+    private final EventPurgeService eventPurgeService;
+    private final EntityManager entityManager;
 
     @Autowired
     public EventService(
@@ -33,96 +52,313 @@ public class EventService {
             EventMapper eventMapper,
             UserRepository userRepository,
             RegistrationStatusRepository registrationStatusRepository,
-            InMemoryCache<String, Object> inMemoryCache,
-            RegistrationStatusService registrationStatusService
+            RegistrationCacheInvalidator registrationCacheInvalidator,
+            RegistrationStatusService registrationStatusService,
+            MissingIdCache missingIdCache,
+            RoleService roleService,
+            SeatAllocator seatAllocator,
+            EventPurgeService eventPurgeService,
+            EntityManager entityManager
     ) {
         this.eventRepository = eventRepository;
         this.eventMapper = eventMapper;
         this.userRepository = userRepository;
         this.registrationStatusRepository = registrationStatusRepository;
-        this.inMemoryCache = inMemoryCache;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
         this.registrationStatusService = registrationStatusService;
+        this.missingIdCache = missingIdCache;
+        this.roleService = roleService;
+        this.seatAllocator = seatAllocator;
+        this.eventPurgeService = eventPurgeService;
+        this.entityManager = entityManager;
     }
 
+    /**
+     * Removes the registration of the user to the event with one DELETE, like
+     * {@link #removeAttendees}.
+     *
+     * @throws ResourceNotFoundException if the event or the registration does not exist
+     */
     @Transactional
     public void removeAttendeeFromEvent(Long eventId, Long userId) {
-        registrationStatusRepository.deleteByEventIdAndUserId(eventId, userId);
+        long removed = remove(eventId, () ->
+                registrationStatusRepository.deleteAttendees(eventId, List.of(userId), null));
+        if (removed == 0) {
+            throw new ResourceNotFoundException(
+                    "Registration of user " + userId + " to event " + eventId + " not found");
+        }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Removes the attendees matching {@code request} with one DELETE. Freed seats go to
+     * the waiting list and the cached lookups of the event are evicted once.
+     */
+    @Transactional
+    public AttendeeRemovalSummaryDto removeAttendees(Long eventId, AttendeeRemovalDto request) {
+        // throws IllegalArgumentException (400) for an unknown status
+        String status = request.getStatus() == null
+                ? null : RegistrationStatusType.valueOf(request.getStatus()).name();
+        long removed = remove(eventId, () ->
+                request.getUserIds() == null || request.getUserIds().isEmpty()
+                        ? registrationStatusRepository.deleteAttendeesByStatus(eventId, status)
+                        : registrationStatusRepository.deleteAttendees(
+                                eventId, request.getUserIds(), status));
+        return new AttendeeRemovalSummaryDto(eventId, removed);
+    }
+
+    /**
+     * Runs one of the attendee DELETEs, hands the freed seats to the waiting list and
+     * evicts the cached lookups of the whole event, so that no user needs to be read for
+     * its key.
+     *
+     * @return the number of registrations removed
+     * @throws ResourceNotFoundException if nothing was removed because the event does not exist
+     */
+    private long remove(Long eventId, Supplier<RegistrationStatusRepository.Removal> delete) {
+        // the DELETE runs as a query, not as @Modifying: pending changes are written first,
+        // and registrations it removed must not stay managed afterwards
+        entityManager.flush();
+        RegistrationStatusRepository.Removal removal = delete.get();
+        entityManager.clear();
+        if (removal.getRemoved() == 0) {
+            if (!eventRepository.existsById(eventId)) {
+                throw new ResourceNotFoundException("Event not found with id " + eventId);
+            }
+            return 0;
+        }
+        seatAllocator.release(eventId, (int) removal.getConfirmed());
+        registrationCacheInvalidator.registrationChanged(eventId, null);
+        return removal.getRemoved();
+    }
 
+    @Transactional(readOnly = true)
     public EventGetDto getEventById(Long id) {
-        Event event = eventRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Event not found with id " + id));
-        return eventMapper.toDto(event);
+        if (missingIdCache.isMissing(Event.class, id)) {
+            throw new ResourceNotFoundException("Event not found with id " + id);
+        }
+        EventProjection event = eventRepository.findProjectionById(id)
+                .orElseThrow(() -> {
+                    missingIdCache.markMissing(Event.class, id);
+                    return new ResourceNotFoundException("Event not found with id " + id);
+                });
+        return toDtos(List.of(event)).get(0);
     }
 
+    /**
+     * Attendees of the event ordered by user id, optionally only those with
+     * {@code status}. {@code cursor} is the {@code nextCursor} of the previous page, or
+     * {@code null} for the first one.
+     *
+     * @throws ResourceNotFoundException if the event does not exist
+     */
     @Transactional(readOnly = true)
-    public List<EventAttendeeDto> getAttendeesByEventId(Long eventId) {
-        List<User> attendees = registrationStatusRepository.findUsersByEventId(eventId);
-        return attendees.stream()
-                .map(this::convertToEventAttendeeDto)
-                .collect(Collectors.toList());
+    public CursorPage<EventAttendeeDto> getAttendeesByEventId(
+            Long eventId,
+            RegistrationStatusType status,
+            String cursor,
+            int size
+    ) {
+        PageCursor.checkPageSize(size);
+        Long afterUserId = cursor == null
+                ? 0L : PageCursor.decode(cursor, parts -> Long.valueOf(parts[0]));
+        checkEventExists(eventId);
+        List<EventAttendeeDto> attendees = registrationStatusRepository.findAttendeePage(
+                eventId, status, afterUserId, PageRequest.ofSize(size + 1));
+
+        String nextCursor = null;
+        if (attendees.size() > size) {
+            attendees = attendees.subList(0, size);
+            nextCursor = PageCursor.encode(attendees.get(size - 1).getId());
+        }
+        return new CursorPage<>(attendees, nextCursor);
     }
 
-    // convert user to EventAttendeeDto
-    private EventAttendeeDto convertToEventAttendeeDto(User user) {
-        EventAttendeeDto dto = new EventAttendeeDto();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        return dto;
+    private void checkEventExists(Long id) {
+        if (missingIdCache.isMissing(Event.class, id)) {
+            throw new ResourceNotFoundException("Event not found with id " + id);
+        }
+        if (!eventRepository.existsById(id)) {
+            missingIdCache.markMissing(Event.class, id);
+            throw new ResourceNotFoundException("Event not found with id " + id);
+        }
     }
 
-    @Transactional(readOnly = true)
-    public List<EventGetDto> getAllEvents() {
-        List<Event> events = eventRepository.findAll();
+    private List<EventGetDto> toDtos(List<EventProjection> events) {
+        Map<Long, Set<RoleGetDto>> organizerRoles = roleService.getRolesByUserIds(
+                events.stream()
+                        .map(event -> event.organizer().id())
+                        .collect(Collectors.toSet()));
         return events.stream()
-                .map(eventMapper::toDto)
-                .collect(Collectors.toList());
+                .map(event -> {
+                    EventGetDto dto = eventMapper.toDto(event);
+                    dto.getOrganizer().setRoles(organizerRoles.get(event.organizer().id()));
+                    return dto;
+                })
+                .toList();
+    }
+
+    /**
+     * Events ordered by date, then id. {@code cursor} is the {@code nextCursor} of the
+     * previous page, or {@code null} for the first one.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<EventGetDto> getEvents(String cursor, int size) {
+        PageCursor.checkPageSize(size);
+        // one extra row tells whether there is a next page without a count query
+        PageRequest limit = PageRequest.ofSize(size + 1);
+        List<EventProjection> events;
+        if (cursor == null) {
+            events = eventRepository.findFirstPage(limit);
+        } else {
+            EventCursor after = PageCursor.decode(cursor, parts -> new EventCursor(
+                    LocalDateTime.parse(parts[0]), Long.valueOf(parts[1])));
+            events = eventRepository.findPageAfter(after.eventDate(), after.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (events.size() > size) {
+            events = events.subList(0, size);
+            EventProjection last = events.get(size - 1);
+            nextCursor = PageCursor.encode(last.eventDate(), last.id());
+        }
+        return new CursorPage<>(toDtos(events), nextCursor);
+    }
+
+    private record EventCursor(LocalDateTime eventDate, Long id) {
     }
 
     @Transactional
     public EventGetDto createEvent(EventCreateDto eventCreateDto) {
+        // the mapper resolves the organizer and throws if it does not exist
         Event event = eventMapper.toEntity(eventCreateDto);
 
-        User organizer = userRepository.findById(eventCreateDto.getOrganizerId())
-                .orElseThrow(()
-                        -> new ResourceNotFoundException(
-                                "User not found with id "
-                                        + eventCreateDto.getOrganizerId()));
-        event.setOrganizer(organizer);
-
         Event savedEvent = eventRepository.save(event);
+        missingIdCache.created(Event.class, savedEvent.getId());
         return eventMapper.toDto(savedEvent);
     }
 
+    /**
+     * Replaces an event. The event row is locked first, so the confirmed seats the new
+     * capacity is checked against, and the free seats handed to the waiting list, cannot
+     * be changed by a concurrent registration before the update commits.
+     */
     @Transactional
     public EventGetDto updateEvent(Long id, EventCreateDto eventCreateDto) {
-        Event event = eventRepository.findById(id)
+        Event event = eventRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Event not found with id " + id));
 
-        User organizer = userRepository.findById(eventCreateDto.getOrganizerId())
-                .orElseThrow(()
-                        -> new ResourceNotFoundException(
-                                "User not found with id "
-                                        + eventCreateDto.getOrganizerId()));
-        event.setOrganizer(organizer);
+        Long organizerId = eventCreateDto.getOrganizerId();
+        // the id of the lazy organizer is read without loading it
+        if (!organizerId.equals(event.getOrganizer().getId())) {
+            User organizer = userRepository.findById(organizerId)
+                    .orElseThrow(()
+                            -> new ResourceNotFoundException(
+                                    "User not found with id " + organizerId));
+            event.setOrganizer(organizer);
+        }
+
+        Integer capacity = eventCreateDto.getCapacity();
+        if (capacity != null && capacity < event.getConfirmedCount()) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is below the "
+                    + event.getConfirmedCount() + " seats already confirmed");
+        }
+        Integer previousCapacity = event.getCapacity();
 
         eventMapper.updateEventFromDto(eventCreateDto, event);
+        // the mapper skips nulls; a full update without a capacity makes the event unlimited
+        event.setCapacity(capacity);
         Event updatedEvent = eventRepository.save(event);
+        capacityChanged(id, previousCapacity, capacity, updatedEvent.getConfirmedCount());
         return eventMapper.toDto(updatedEvent);
     }
 
+    /**
+     * Applies the given fields with one conditional UPDATE, without loading the event, if
+     * it is still at the version the client read.
+     *
+     * @throws OptimisticLockingFailureException if the event changed since
+     */
     @Transactional
-    public void deleteEvent(Long id) {
-        Event event = eventRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Event not found with id " + id));
+    public EventGetDto patchEvent(Long id, EventPatchDto eventPatchDto) {
+        long version = eventPatchDto.getVersion();
+        Integer capacity = eventPatchDto.getCapacity();
+        EventRepository.Patched patched = eventRepository.patch(
+                        id,
+                        version,
+                        eventPatchDto.getTitle(),
+                        eventPatchDto.getDescription(),
+                        eventPatchDto.getEventDate(),
+                        eventPatchDto.getLocation(),
+                        capacity)
+                .orElseThrow(() -> patchRejected(id, version, capacity));
+
+        capacityChanged(id, patched.getPreviousCapacity(), patched.getCapacity(),
+                patched.getConfirmedCount());
+        return getEventById(id);
+    }
+
+    /**
+     * Hands the seats a raised capacity added to the waiting list; a null capacity is
+     * unlimited, so all waiting registrations are confirmed when the limit is removed.
+     */
+    private void capacityChanged(
+            Long id,
+            Integer previousCapacity,
+            Integer capacity,
+            int confirmedCount
+    ) {
+        if (previousCapacity == null) {
+            return; // nobody waits for an unlimited event
+        }
+        if (capacity == null) {
+            seatAllocator.seatsAdded(id, Integer.MAX_VALUE);
+        } else if (capacity > previousCapacity) {
+            seatAllocator.seatsAdded(id, capacity - confirmedCount);
+        }
+    }
 
-        inMemoryCache.evictByPattern("registrationStatus:filtered:eventId=" + id);
-        inMemoryCache.evictByPattern("registrationStatus:confirmedUsers:eventId=" + id);
+    /**
+     * Why {@link EventRepository#patch} changed nothing.
+     */
+    private RuntimeException patchRejected(Long id, long version, Integer capacity) {
+        Long current = eventRepository.findVersionById(id).orElse(null);
+        if (current == null) {
+            return new ResourceNotFoundException("Event not found with id " + id);
+        }
+        if (current != version) {
+            return new OptimisticLockingFailureException(
+                    "Event " + id + " is at version " + current + ", not " + version);
+        }
+        return new IllegalArgumentException(
+                "Capacity " + capacity + " is below the seats already confirmed");
+    }
 
-        eventRepository.delete(event);
+    /**
+     * Marks the event deleted and schedules the purge of its registrations; the request
+     * does not wait for them. The event can be restored until the purge starts.
+     */
+    @Transactional
+    public EventPurgeService.PurgeTask deleteEvent(Long id) {
+        LocalDateTime deletedAt = LocalDateTime.now();
+        if (eventRepository.markDeleted(id, deletedAt) == 0) {
+            throw new ResourceNotFoundException("Event not found with id " + id);
+        }
+        registrationCacheInvalidator.eventChanged(id);
+        return eventPurgeService.schedule(id, deletedAt);
+    }
+
+    /**
+     * Restores a deleted event whose purge has not started or has failed.
+     */
+    @Transactional
+    public void restoreEvent(Long id) {
+        // takes effect on commit; if the restore rolls back, the purge goes ahead
+        eventPurgeService.cancel(id);
+        if (eventRepository.restore(id) == 0) {
+            throw new ResourceNotFoundException("Deleted event not found with id " + id);
+        }
+        registrationCacheInvalidator.eventChanged(id);
+        // lookups made while the event was deleted may have recorded it as missing
+        missingIdCache.created(Event.class, id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
+import me.bsuir.easyattend.utils.IdempotentRegistration;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Responses of registration requests sent with an {@code Idempotency-Key} header. A
+ * repeated request with the same key is answered from here without touching the
+ * database. A response is remembered only once its transaction has committed.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final InMemoryCache<String, IdempotentRegistration> idempotencyKeysCache;
+
+    @Autowired
+    public IdempotencyCache(
+            InMemoryCache<String, IdempotentRegistration> idempotencyKeysCache
+    ) {
+        this.idempotencyKeysCache = idempotencyKeysCache;
+    }
+
+    /**
+     * The response already given for {@code key}, or null if there is none.
+     *
+     * @throws IllegalArgumentException if the key was used for a different request
+     */
+    public RegistrationStatusRefDto find(String key, RegistrationStatusCreateDto request) {
+        IdempotentRegistration cached = idempotencyKeysCache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.answers(request)) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key " + key + " was already used for a different request");
+        }
+        return cached.response();
+    }
+
+    public void remember(
+            String key,
+            RegistrationStatusCreateDto request,
+            RegistrationStatusRefDto response
+    ) {
+        IdempotentRegistration registration = IdempotentRegistration.of(request, response);
+        TransactionHooks.afterCommit(() -> idempotencyKeysCache.put(key, registration));
+    }
+}
@@ -0,0 +1,47 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.utils.EntityIdKey;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived record of ids that were just looked up and not found, so repeated requests
+ * for deleted ids are answered with 404 without another database round trip. Creating an
+ * entity clears its id after commit; the short TTL covers anything else.
+ */
+@Component
+public class MissingIdCache {
+
+    private final InMemoryCache<EntityIdKey, Boolean> notFoundIdsCache;
+
+    @Autowired
+    public MissingIdCache(InMemoryCache<EntityIdKey, Boolean> notFoundIdsCache) {
+        this.notFoundIdsCache = notFoundIdsCache;
+    }
+
+    public boolean isMissing(Class<?> type, Long id) {
+        return notFoundIdsCache.get(new EntityIdKey(type, id)) != null;
+    }
+
+    public void markMissing(Class<?> type, Long id) {
+        notFoundIdsCache.put(new EntityIdKey(type, id), Boolean.TRUE, type);
+    }
+
+    /**
+     * An entity of {@code type} with {@code id} was created in the current transaction.
+     */
+    public void created(Class<?> type, Long id) {
+        EntityIdKey key = new EntityIdKey(type, id);
+        TransactionHooks.afterCommit(() -> notFoundIdsCache.evict(key));
+    }
+
+    /**
+     * Many entities of {@code type} were created in the current transaction; forgets every
+     * missing id of that type instead of evicting the new ids one by one.
+     */
+    public void createdInBulk(Class<?> type) {
+        TransactionHooks.afterCommit(() -> notFoundIdsCache.evictGroup(type));
+    }
+}
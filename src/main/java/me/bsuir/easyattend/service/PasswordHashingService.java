@@ -0,0 +1,226 @@
+package me.bsuir.easyattend.service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import me.bsuir.easyattend.exception.ServiceOverloadedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hashes passwords on a pool of its own, so that BCrypt never runs on a request thread.
+ * BCrypt is CPU-bound and deliberately slow. By default the pool therefore gets half the
+ * cores, which leaves the rest to other requests during a signup burst. The queue is
+ * bounded. When it is full a hash is rejected with {@link ServiceOverloadedException}
+ * (503) right away, instead of keeping a request thread waiting for seconds.
+ *
+ * <p>The BCrypt cost follows the measured hash time towards {@code targetTime}, staying
+ * between {@code minCost} and {@code maxCost}. A hash stores its cost, so hashes made at
+ * any cost are verified alike.
+ */
+@Service
+public class PasswordHashingService {
+
+    /**
+     * Hashes at one cost that are averaged before the cost is reconsidered.
+     */
+    static final int ADAPT_WINDOW = 32;
+
+    private final PasswordEncoder[] encoders;
+    private final int minCost;
+    private final int maxCost;
+    private final long targetNanos;
+    private final ThreadPoolExecutor executor;
+
+    private volatile int cost;
+    // hashes at the current cost since it last changed; guarded by this
+    private int windowCount;
+    private long windowNanos;
+
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public PasswordHashingService(
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${password.hashing.min-cost:10}") int minCost,
+            @Value("${password.hashing.max-cost:14}") int maxCost,
+            @Value("${password.hashing.target-time:100ms}") Duration targetTime
+    ) {
+        this(BCryptPasswordEncoder::new,
+                threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                queueCapacity, minCost, maxCost, targetTime);
+    }
+
+    PasswordHashingService(
+            IntFunction<PasswordEncoder> encoderForCost,
+            int threads,
+            int queueCapacity,
+            int minCost,
+            int maxCost,
+            Duration targetTime
+    ) {
+        if (minCost > maxCost) {
+            throw new IllegalArgumentException(
+                    "min-cost " + minCost + " is above max-cost " + maxCost);
+        }
+        this.encoders = new PasswordEncoder[maxCost - minCost + 1];
+        for (int c = minCost; c <= maxCost; c++) {
+            encoders[c - minCost] = encoderForCost.apply(c);
+        }
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+        this.targetNanos = targetTime.toNanos();
+        // the BCrypt default, if the bounds allow it
+        this.cost = Math.max(minCost, Math.min(maxCost, 10));
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes one password on the pool and waits for it.
+     *
+     * @throws ServiceOverloadedException if the pool's queue is full
+     */
+    public String hash(String rawPassword) {
+        return await(submit(rawPassword));
+    }
+
+    /**
+     * Hashes every password in parallel. The result is in the order of {@code rawPasswords}.
+     * No more than one password per pool thread is in flight, so a large import
+     * leaves the queue to single signups instead of filling it. A failed hash is rethrown
+     * as is, like from {@link #hash(String)}.
+     *
+     * @throws ServiceOverloadedException if the pool's queue is full
+     */
+    public List<String> hashAll(List<String> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        for (int i = 0; i < rawPasswords.size(); i++) {
+            if (i >= window) {
+                await(hashes.get(i - window));
+            }
+            hashes.add(submit(rawPasswords.get(i)));
+        }
+        return hashes.stream()
+                .map(PasswordHashingService::await)
+                .toList();
+    }
+
+    public Stats stats() {
+        long count = hashed.sum();
+        return new Stats(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+                cost,
+                count,
+                rejected.sum(),
+                count == 0 ? 0.0 : hashNanos.sum() / (count * 1_000_000.0));
+    }
+
+    /**
+     * Counters of the hashing pool; {@code queueCapacity} is the size of its queue.
+     */
+    public record Stats(
+            int threads,
+            int active,
+            int queued,
+            int queueCapacity,
+            int cost,
+            long hashed,
+            long rejected,
+            double averageHashMillis
+    ) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<String> submit(String rawPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> encode(rawPassword), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException(
+                    "Too many passwords are being hashed, try again shortly");
+        }
+    }
+
+    private static String await(CompletableFuture<String> hash) {
+        try {
+            return hash.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private String encode(String rawPassword) {
+        int usedCost = cost;
+        long start = System.nanoTime();
+        String hash = encoders[usedCost - minCost].encode(rawPassword);
+        long nanos = System.nanoTime() - start;
+        hashed.increment();
+        hashNanos.add(nanos);
+        adapt(usedCost, nanos);
+        return hash;
+    }
+
+    /**
+     * One cost step doubles the hash time. The cost goes up while the doubled time still
+     * fits the target, and down while the halved time would still exceed it.
+     */
+    private synchronized void adapt(int usedCost, long nanos) {
+        if (usedCost != cost) {
+            return; // measured at a cost that has been replaced since
+        }
+        windowNanos += nanos;
+        if (++windowCount < ADAPT_WINDOW) {
+            return;
+        }
+        long average = windowNanos / windowCount;
+        windowCount = 0;
+        windowNanos = 0;
+        if (average * 2 <= targetNanos && cost < maxCost) {
+            cost++;
+        } else if (average > targetNanos * 2 && cost > minCost) {
+            cost--;
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package me.bsuir.easyattend.service;
+
+import java.util.List;
+import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.utils.EventLastNameKey;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached registration lookups affected by a write. Eviction runs after the
+ * surrounding transaction commits, so readers cannot re-cache the old rows in between,
+ * and nothing is evicted for a rolled back write.
+ */
+@Component
+public class RegistrationCacheInvalidator {
+
+    private final InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+            filteredRegistrationStatusesCache;
+    private final InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache;
+
+    @Autowired
+    public RegistrationCacheInvalidator(
+            InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+                    filteredRegistrationStatusesCache,
+            InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache
+    ) {
+        this.filteredRegistrationStatusesCache = filteredRegistrationStatusesCache;
+        this.confirmedUsersCache = confirmedUsersCache;
+    }
+
+    /**
+     * A registration of a user with {@code lastName} to {@code eventId} changed. Only the
+     * cached filters of that event which the last name matches are evicted. A null last
+     * name evicts the whole event.
+     */
+    public void registrationChanged(Long eventId, String lastName) {
+        TransactionHooks.afterCommit(() -> {
+            if (lastName == null) {
+                evictEvent(eventId);
+                return;
+            }
+            filteredRegistrationStatusesCache.evictGroupIf(
+                    eventId, key -> matches(key.lastName(), lastName));
+            confirmedUsersCache.evictGroupIf(
+                    eventId, key -> matches(key.lastName(), lastName));
+        });
+    }
+
+    public void eventChanged(Long eventId) {
+        TransactionHooks.afterCommit(() -> evictEvent(eventId));
+    }
+
+    /**
+     * A user's last name changed or the user was removed; any event may be affected.
+     */
+    public void userChanged() {
+        TransactionHooks.afterCommit(() -> {
+            filteredRegistrationStatusesCache.clear();
+            confirmedUsersCache.clear();
+        });
+    }
+
+    private void evictEvent(Long eventId) {
+        filteredRegistrationStatusesCache.evictGroup(eventId);
+        confirmedUsersCache.evictGroup(eventId);
+    }
+
+    /**
+     * Mirrors {@code lastName LIKE %filter%}. Filters with LIKE wildcards are treated as
+     * matching so they are never left stale.
+     */
+    private static boolean matches(String filter, String lastName) {
+        return filter == null
+                || filter.indexOf('%') >= 0
+                || filter.indexOf('_') >= 0
+                || lastName.contains(filter);
+    }
+}
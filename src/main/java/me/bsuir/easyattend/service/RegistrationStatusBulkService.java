@@ -0,0 +1,121 @@
+package me.bsuir.easyattend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import me.bsuir.easyattend.dto.create.BulkRegistrationCreateDto;
+import me.bsuir.easyattend.dto.get.BulkRegistrationSummaryDto;
+import me.bsuir.easyattend.model.RegistrationStatus;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import me.bsuir.easyattend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Registers many users to one event. Existence and duplicate checks are one query each,
+ * and rows are inserted {@value #CHUNK_SIZE} per statement without loading or managing
+ * any entity. A user registered concurrently between the check and the insert is counted
+ * as a duplicate.
+ */
+@Service
+public class RegistrationStatusBulkService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final RegistrationStatusRepository registrationStatusRepository;
+    private final UserRepository userRepository;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
+    private final MissingIdCache missingIdCache;
+    private final SeatAllocator seatAllocator;
+
+    @Autowired
+    public RegistrationStatusBulkService(
+            RegistrationStatusRepository registrationStatusRepository,
+            UserRepository userRepository,
+            RegistrationCacheInvalidator registrationCacheInvalidator,
+            MissingIdCache missingIdCache,
+            SeatAllocator seatAllocator
+    ) {
+        this.registrationStatusRepository = registrationStatusRepository;
+        this.userRepository = userRepository;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
+        this.missingIdCache = missingIdCache;
+        this.seatAllocator = seatAllocator;
+    }
+
+    /**
+     * Registers every listed user who exists and is not registered to the event yet. A
+     * user listed twice is registered with the first status. CONFIRMED registrations
+     * beyond the free seats of the event go to the waiting list. The whole request is one
+     * transaction.
+     */
+    @Transactional
+    public BulkRegistrationSummaryDto registerAll(BulkRegistrationCreateDto request) {
+        Long eventId = request.getEventId();
+        Map<Long, RegistrationStatusType> requested = new LinkedHashMap<>();
+        for (BulkRegistrationCreateDto.Registration registration : request.getRegistrations()) {
+            // throws IllegalArgumentException (400) before anything is written
+            RegistrationStatusType status =
+                    RegistrationStatusType.valueOf(registration.getStatus());
+            requested.putIfAbsent(registration.getUserId(), status);
+        }
+
+        Set<Long> existingUsers = new HashSet<>(userRepository.findExistingIds(requested.keySet()));
+        Set<Long> alreadyRegistered = new HashSet<>(
+                registrationStatusRepository.findRegisteredUserIds(eventId, requested.keySet()));
+
+        List<Long> unknownUserIds = new ArrayList<>();
+        List<Long> newUserIds = new ArrayList<>();
+        List<RegistrationStatusType> newStatuses = new ArrayList<>();
+        for (Map.Entry<Long, RegistrationStatusType> entry : requested.entrySet()) {
+            Long userId = entry.getKey();
+            if (!existingUsers.contains(userId)) {
+                unknownUserIds.add(userId);
+            } else if (!alreadyRegistered.contains(userId)) {
+                newUserIds.add(userId);
+                newStatuses.add(entry.getValue());
+            }
+        }
+        // locks the event row and takes all seats at once; throws if the event is missing
+        List<RegistrationStatusType> granted = seatAllocator.claimAll(eventId, newStatuses);
+
+        int created = 0;
+        int confirmed = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < newUserIds.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, newUserIds.size());
+            List<String> inserted = registrationStatusRepository.insertAll(
+                    eventId,
+                    newUserIds.subList(from, to).toArray(Long[]::new),
+                    granted.subList(from, to).stream().map(Enum::name).toArray(String[]::new),
+                    now);
+            created += inserted.size();
+            confirmed += (int) inserted.stream()
+                    .filter(RegistrationStatusType.CONFIRMED.name()::equals)
+                    .count();
+        }
+        // seats claimed for users who registered concurrently go back to the waiting list
+        int claimed = (int) granted.stream()
+                .filter(status -> status == RegistrationStatusType.CONFIRMED)
+                .count();
+        seatAllocator.release(eventId, claimed - confirmed);
+
+        if (created > 0) {
+            registrationCacheInvalidator.registrationChanged(eventId, null);
+            missingIdCache.createdInBulk(RegistrationStatus.class);
+        }
+        int requestedRows = request.getRegistrations().size();
+        return new BulkRegistrationSummaryDto(
+                eventId,
+                requestedRows,
+                created,
+                requestedRows - created - unknownUserIds.size(),
+                unknownUserIds);
+    }
+}
@@ -0,0 +1,131 @@
+package me.bsuir.easyattend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import me.bsuir.easyattend.dto.get.EventAttendeeDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.projection.RegistrationStatusProjection;
+import me.bsuir.easyattend.mapper.RegistrationStatusMapper;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes registration statuses and event attendee rosters as newline-delimited JSON while
+ * they are read from a server-side cursor. The cursor returns flat rows, not entities, so
+ * nothing piles up in the persistence context. Statuses are written in chunks of
+ * {@value #CHUNK_SIZE} rows, with the roles of a chunk read in one query, so memory use
+ * does not depend on the number of rows.
+ */
+@Service
+public class RegistrationStatusExportService {
+
+    static final int CHUNK_SIZE = RegistrationStatusRepository.EXPORT_FETCH_SIZE;
+
+    private static final byte NEWLINE = '\n';
+
+    private final RegistrationStatusRepository registrationStatusRepository;
+    private final RegistrationStatusMapper registrationStatusMapper;
+    private final RoleService roleService;
+    private final ObjectWriter writer;
+    private final ObjectWriter attendeeWriter;
+
+    @Autowired
+    public RegistrationStatusExportService(
+            RegistrationStatusRepository registrationStatusRepository,
+            RegistrationStatusMapper registrationStatusMapper,
+            RoleService roleService,
+            ObjectMapper objectMapper
+    ) {
+        this.registrationStatusRepository = registrationStatusRepository;
+        this.registrationStatusMapper = registrationStatusMapper;
+        this.roleService = roleService;
+        this.writer = objectMapper.writerFor(RegistrationStatusGetDto.class);
+        this.attendeeWriter = objectMapper.writerFor(EventAttendeeDto.class);
+    }
+
+    /**
+     * Streams every registration status to {@code out}, one JSON object per line. The
+     * transaction, and with it the database cursor, stays open until the last row is
+     * written.
+     *
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(OutputStream out) throws IOException {
+        long written = 0;
+        List<RegistrationStatusProjection> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<RegistrationStatusProjection> rows =
+                     registrationStatusRepository.streamAll()) {
+            Iterator<RegistrationStatusProjection> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    written += write(chunk, out);
+                    chunk.clear();
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    private int write(List<RegistrationStatusProjection> chunk, OutputStream out)
+            throws IOException {
+        Set<Long> userIds = new HashSet<>();
+        for (RegistrationStatusProjection row : chunk) {
+            userIds.add(row.user().id());
+            userIds.add(row.event().organizer().id());
+        }
+        Map<Long, Set<RoleGetDto>> roles = roleService.getRolesByUserIds(userIds);
+        for (RegistrationStatusProjection row : chunk) {
+            RegistrationStatusGetDto dto = registrationStatusMapper.toDto(row);
+            dto.getUser().setRoles(roles.get(row.user().id()));
+            dto.getEvent().getOrganizer().setRoles(roles.get(row.event().organizer().id()));
+            out.write(writer.writeValueAsBytes(dto));
+            out.write(NEWLINE);
+        }
+        return chunk.size();
+    }
+
+    /**
+     * Streams the attendees of {@code eventId} ordered by user id, optionally only those
+     * with {@code status}.
+     *
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long exportAttendees(
+            Long eventId,
+            RegistrationStatusType status,
+            OutputStream out
+    ) throws IOException {
+        long written = 0;
+        try (Stream<EventAttendeeDto> rows =
+                     registrationStatusRepository.streamAttendees(eventId, status)) {
+            Iterator<EventAttendeeDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                out.write(attendeeWriter.writeValueAsBytes(iterator.next()));
+                out.write(NEWLINE);
+                if (++written % CHUNK_SIZE == 0) {
+                    out.flush();
+                }
+            }
+        }
+        out.flush();
+        return written;
+    }
+}
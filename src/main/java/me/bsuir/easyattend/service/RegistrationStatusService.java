@@ -2,22 +2,28 @@ package me.bsuir.easyattend.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.create.RegistrationStatusPatchDto;
 import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
 import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.EventMapper;
 import me.bsuir.easyattend.mapper.RegistrationStatusMapper;
-import me.bsuir.easyattend.model.Event;
 import me.bsuir.easyattend.model.RegistrationStatus;
-import me.bsuir.easyattend.model.User;
+import me.bsuir.easyattend.model.RegistrationStatusType;
 import me.bsuir.easyattend.repository.EventRepository;
 import me.bsuir.easyattend.repository.RegistrationStatusRepository;
 import me.bsuir.easyattend.repository.UserRepository;
+import me.bsuir.easyattend.utils.EventLastNameKey;
 import me.bsuir.easyattend.utils.InMemoryCache;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,8 +35,13 @@ public class RegistrationStatusService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final EventMapper eventMapper;
-    private final InMemoryCache<String, Object> inMemoryCache;
-    private static final String CACHE_KEY_PREFIX = "registrationStatus";
+    private final InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+            filteredRegistrationStatusesCache;
+    private final InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
+    private final MissingIdCache missingIdCache;
+    private final SeatAllocator seatAllocator;
+    private final IdempotencyCache idempotencyCache;
 
     @Autowired
     public RegistrationStatusService(
@@ -39,14 +50,25 @@ public class RegistrationStatusService {
             EventRepository eventRepository,
             UserRepository userRepository,
             EventMapper eventMapper,
-            InMemoryCache<String, Object> inMemoryCache
+            InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+                    filteredRegistrationStatusesCache,
+            InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache,
+            RegistrationCacheInvalidator registrationCacheInvalidator,
+            MissingIdCache missingIdCache,
+            SeatAllocator seatAllocator,
+            IdempotencyCache idempotencyCache
     ) {
         this.registrationStatusRepository = registrationStatusRepository;
         this.registrationStatusMapper = registrationStatusMapper;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.eventMapper = eventMapper;
-        this.inMemoryCache = inMemoryCache;
+        this.filteredRegistrationStatusesCache = filteredRegistrationStatusesCache;
+        this.confirmedUsersCache = confirmedUsersCache;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
+        this.missingIdCache = missingIdCache;
+        this.seatAllocator = seatAllocator;
+        this.idempotencyCache = idempotencyCache;
     }
 
     @Transactional(readOnly = true)
@@ -54,33 +76,32 @@ public class RegistrationStatusService {
             Long eventId,
             String lastName) {
 
-        String cacheKey =
-                CACHE_KEY_PREFIX + ":filtered:eventId=" + eventId + ",lastName=" + lastName;
-        List<RegistrationStatusGetDto> cachedResult =
-                (List<RegistrationStatusGetDto>) inMemoryCache.get(cacheKey);
-
-        if (cachedResult != null) {
-            return cachedResult;
-        }
-
-        List<RegistrationStatus> registrationStatuses
-                = registrationStatusRepository.findByEventIdAndUserLastName(eventId, lastName);
-        List<RegistrationStatusGetDto> dtos = registrationStatuses.stream()
-                .map(registrationStatusMapper::toDto)
-                .collect(Collectors.toList());
-        inMemoryCache.put(cacheKey, dtos);
-        return dtos;
+        return filteredRegistrationStatusesCache.get(
+                new EventLastNameKey(eventId, lastName),
+                eventId,
+                key -> registrationStatusRepository
+                        .findByEventIdAndUserLastName(key.eventId(), key.lastName())
+                        .stream()
+                        .map(registrationStatusMapper::toDto)
+                        .toList());
     }
 
     @Transactional(readOnly = true)
     public RegistrationStatusGetDto getRegistrationStatusById(Long id) {
+        if (missingIdCache.isMissing(RegistrationStatus.class, id)) {
+            throw new ResourceNotFoundException("RegistrationStatus not found with id " + id);
+        }
         RegistrationStatus registrationStatus
                 = registrationStatusRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "RegistrationStatus not found with id " + id));
+                .orElseThrow(() -> {
+                    missingIdCache.markMissing(RegistrationStatus.class, id);
+                    return new ResourceNotFoundException(
+                            "RegistrationStatus not found with id " + id);
+                });
         return registrationStatusMapper.toDto(registrationStatus);
     }
 
+    @Transactional(readOnly = true)
     public List<RegistrationStatusGetDto> getRegistrationStatusesByUserId(Long userId) {
         List<RegistrationStatus> registrationStatuses
                 = registrationStatusRepository.findByUserId(userId);
@@ -98,72 +119,200 @@ public class RegistrationStatusService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Registers the user to the event, or moves an existing registration to the requested
+     * status; repeating the request changes nothing. With an {@code idempotencyKey} a
+     * repeated request is answered with the first response without a database round trip.
+     * Neither the event nor the user is loaded; a missing one is reported by its foreign key.
+     */
     @Transactional
-    public RegistrationStatusGetDto createRegistrationStatus(
-            RegistrationStatusCreateDto registrationStatusCreateDto
+    public RegistrationStatusRefDto createRegistrationStatus(
+            RegistrationStatusCreateDto registrationStatusCreateDto,
+            String idempotencyKey
     ) {
-        RegistrationStatus registrationStatus
-                = registrationStatusMapper.toEntity(registrationStatusCreateDto);
-
-        Event event = eventRepository.findById(registrationStatusCreateDto.getEventId())
-                .orElseThrow(() ->
-                        new ResourceNotFoundException(
-                                "Event not found with id "
-                                        + registrationStatusCreateDto.getEventId()));
-        User user = userRepository.findById(registrationStatusCreateDto.getUserId())
-                .orElseThrow(() ->
-                        new ResourceNotFoundException(
-                                "User not found with id "
-                                        + registrationStatusCreateDto.getUserId()));
-
-        registrationStatus.setEvent(event);
-        registrationStatus.setUser(user);
-        registrationStatus.setStatusDate(LocalDateTime.now());
-
-        RegistrationStatus savedRegistrationStatus
-                = registrationStatusRepository
-                .save(registrationStatus);
-        return registrationStatusMapper.toDto(savedRegistrationStatus);
+        if (idempotencyKey != null) {
+            RegistrationStatusRefDto previousResponse =
+                    idempotencyCache.find(idempotencyKey, registrationStatusCreateDto);
+            if (previousResponse != null) {
+                return previousResponse;
+            }
+        }
+        RegistrationStatusType requested =
+                RegistrationStatusType.valueOf(registrationStatusCreateDto.getStatus());
+        Long eventId = registrationStatusCreateDto.getEventId();
+        Long userId = registrationStatusCreateDto.getUserId();
+
+        Optional<RegistrationStatusRepository.Upsert> upsert;
+        try {
+            upsert = registrationStatusRepository.upsert(eventId, userId, requested.name());
+        } catch (DataIntegrityViolationException e) {
+            throw notFound(e, eventId, userId);
+        }
+        RegistrationStatusRefDto response;
+        if (upsert.isEmpty()) {
+            // already registered with this status, or the event is deleted
+            response = registrationStatusRepository.findRefByEventIdAndUserId(eventId, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Event not found with id " + eventId));
+        } else {
+            RegistrationStatusRepository.Upsert result = upsert.get();
+            response = new RegistrationStatusRefDto(result.getId(), eventId, userId,
+                    requested.name(), result.getStatusDate(), result.getVersion());
+            applySeatChange(response, result);
+            if (result.isInserted()) {
+                missingIdCache.created(RegistrationStatus.class, result.getId());
+            }
+            registrationCacheInvalidator.registrationChanged(eventId, result.getLastName());
+        }
+
+        if (idempotencyKey != null) {
+            idempotencyCache.remember(idempotencyKey, registrationStatusCreateDto, response);
+        }
+        return response;
+    }
+
+    /**
+     * Brings the seat counter in line with a registration the upsert just moved to the
+     * status of {@code registration}, which is updated if the event turns out to be full.
+     * A previous status lost to a concurrent insert counts as holding no seat, which can
+     * leave a seat unused but never overbooks the event.
+     */
+    private void applySeatChange(
+            RegistrationStatusRefDto registration,
+            RegistrationStatusRepository.Upsert upsert
+    ) {
+        Long eventId = registration.getEventId();
+        RegistrationStatusType requested = RegistrationStatusType.valueOf(registration.getStatus());
+        RegistrationStatusType previous = upsert.isInserted() || upsert.getPreviousStatus() == null
+                ? null : RegistrationStatusType.valueOf(upsert.getPreviousStatus());
+        if (previous == RegistrationStatusType.CONFIRMED) {
+            seatAllocator.release(eventId, 1);
+        }
+        if (requested == RegistrationStatusType.CONFIRMED
+                && seatAllocator.claim(eventId, requested) == RegistrationStatusType.WAITING_LIST) {
+            // a registration that was already waiting keeps its place in the queue
+            LocalDateTime queuedAt = previous == RegistrationStatusType.WAITING_LIST
+                    ? upsert.getPreviousStatusDate() : LocalDateTime.now();
+            registrationStatusRepository.updateStatus(
+                    registration.getId(), RegistrationStatusType.WAITING_LIST, queuedAt);
+            registration.setStatus(RegistrationStatusType.WAITING_LIST.name());
+            registration.setStatusDate(queuedAt);
+            registration.setVersion(registration.getVersion() + 1);
+        }
     }
 
+    /**
+     * Changes the registration with one SELECT of it and its user and one UPDATE. A new
+     * event or user is attached as a reference without being loaded.
+     */
     @Transactional
-    public RegistrationStatusGetDto updateRegistrationStatus(
+    public RegistrationStatusRefDto updateRegistrationStatus(
             Long id,
             RegistrationStatusCreateDto registrationStatusCreateDto
     ) {
-        RegistrationStatus registrationStatus = registrationStatusRepository.findById(id)
+        RegistrationStatus registrationStatus = registrationStatusRepository.findWithUserById(id)
                 .orElseThrow(()
                         -> new ResourceNotFoundException(
                         "RegistrationStatus not found with id "
                                 + id)
                 );
+        Long previousEventId = registrationStatus.getEvent().getId();
+        Long previousUserId = registrationStatus.getUser().getId();
+        String previousLastName = registrationStatus.getUser().getLastName();
+        registrationCacheInvalidator.registrationChanged(previousEventId, previousLastName);
 
-        Event event = eventRepository.findById(registrationStatusCreateDto.getEventId())
-                .orElseThrow(()
-                        -> new ResourceNotFoundException(
-                        "Event not found with id "
-                                + registrationStatusCreateDto.getEventId())
-                );
-        User user = userRepository.findById(registrationStatusCreateDto.getUserId())
-                .orElseThrow(()
-                        -> new ResourceNotFoundException(
-                        "User not found with id "
-                                + registrationStatusCreateDto.getUserId())
-                );
+        Long eventId = registrationStatusCreateDto.getEventId();
+        Long userId = registrationStatusCreateDto.getUserId();
+        RegistrationStatusType requested =
+                RegistrationStatusType.valueOf(registrationStatusCreateDto.getStatus());
+        boolean heldSeat = registrationStatus.getStatus() == RegistrationStatusType.CONFIRMED;
+        boolean wantsSeat = requested == RegistrationStatusType.CONFIRMED;
+        boolean sameEvent = previousEventId.equals(eventId);
+        boolean sameUser = previousUserId.equals(userId);
+        // released before the row changes, so the seat cannot go back to this registration
+        if (heldSeat && !(wantsSeat && sameEvent)) {
+            seatAllocator.release(previousEventId, 1);
+        }
+
+        if (!sameEvent) {
+            registrationStatus.setEvent(eventRepository.getReferenceById(eventId));
+        }
+        if (!sameUser) {
+            registrationStatus.setUser(userRepository.getReferenceById(userId));
+        }
+        if (registrationStatus.getStatus() != requested) {
+            registrationStatus.setStatus(requested);
+            registrationStatus.setStatusDate(LocalDateTime.now());
+        }
+        try {
+            registrationStatusRepository.saveAndFlush(registrationStatus);
+        } catch (DataIntegrityViolationException e) {
+            throw notFound(e, eventId, userId);
+        }
+        if (wantsSeat && !(heldSeat && sameEvent)) {
+            registrationStatus.setStatus(
+                    seatAllocator.claim(eventId, RegistrationStatusType.CONFIRMED));
+        }
+
+        registrationCacheInvalidator.registrationChanged(
+                eventId, sameUser ? previousLastName : null);
+        return registrationStatusMapper.toRefDto(registrationStatus);
+    }
 
-        registrationStatus.setEvent(event);
-        registrationStatus.setUser(user);
-        registrationStatus.setStatusDate(LocalDateTime.now());
+    /**
+     * Moves the registration to the requested status with one conditional UPDATE, without
+     * loading it, if it is still at the version the client read. Asking for the status it
+     * already has changes nothing.
+     *
+     * @throws OptimisticLockingFailureException if the registration changed since
+     */
+    @Transactional
+    public RegistrationStatusRefDto patchRegistrationStatus(
+            Long id,
+            RegistrationStatusPatchDto registrationStatusPatchDto
+    ) {
+        RegistrationStatusType requested =
+                RegistrationStatusType.valueOf(registrationStatusPatchDto.getStatus());
+        long version = registrationStatusPatchDto.getVersion();
+        Optional<RegistrationStatusRepository.StatusChange> change =
+                registrationStatusRepository.changeStatus(id, requested.name(), version);
+        if (change.isEmpty()) {
+            RegistrationStatusRefDto current = registrationStatusRepository.findRefById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "RegistrationStatus not found with id " + id));
+            if (current.getVersion() != version) {
+                throw new OptimisticLockingFailureException("RegistrationStatus " + id
+                        + " is at version " + current.getVersion() + ", not " + version);
+            }
+            return current;
+        }
 
-        registrationStatusMapper.updateRegistrationStatusFromDto(
-                registrationStatusCreateDto,
-                registrationStatus
-        );
+        RegistrationStatusRepository.StatusChange result = change.get();
+        RegistrationStatusRefDto response = new RegistrationStatusRefDto(id, result.getEventId(),
+                result.getUserId(), requested.name(), result.getStatusDate(), result.getVersion());
+        applySeatChange(response, result);
+        registrationCacheInvalidator.registrationChanged(result.getEventId(), result.getLastName());
+        return response;
+    }
 
-        RegistrationStatus updatedRegistrationStatus
-                = registrationStatusRepository
-                .save(registrationStatus);
-        return registrationStatusMapper.toDto(updatedRegistrationStatus);
+    /**
+     * The 404 a lookup by id would have given for the foreign key a write violated, or the
+     * violation itself if it was another constraint.
+     */
+    private static RuntimeException notFound(
+            DataIntegrityViolationException e,
+            Long eventId,
+            Long userId
+    ) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        if (RegistrationStatus.FK_EVENT.equalsIgnoreCase(constraint)) {
+            return new ResourceNotFoundException("Event not found with id " + eventId);
+        }
+        if (RegistrationStatus.FK_USER.equalsIgnoreCase(constraint)) {
+            return new ResourceNotFoundException("User not found with id " + userId);
+        }
+        return e;
     }
 
     @Transactional
@@ -174,14 +323,30 @@ public class RegistrationStatusService {
                         "RegistrationStatus not found with id "
                                 + id)
                 );
+        registrationCacheInvalidator.registrationChanged(
+                registrationStatus.getEvent().getId(),
+                registrationStatus.getUser().getLastName());
         registrationStatusRepository.delete(registrationStatus);
+        if (registrationStatus.getStatus() == RegistrationStatusType.CONFIRMED) {
+            seatAllocator.release(registrationStatus.getEvent().getId(), 1);
+        }
     }
 
-    public List<EventGetDto> getEventsByUserId(Long userId) {
-        List<RegistrationStatus> registrationStatuses
-                = registrationStatusRepository.findByUserId(userId);
-        return registrationStatuses.stream()
-                .map(rs -> eventMapper.toDto(rs.getEvent()))
+    /**
+     * Events the user is registered to, ordered by date, optionally limited to
+     * {@code [from, to)}. Either bound may be null.
+     */
+    @Transactional(readOnly = true)
+    public List<EventGetDto> getEventsByUserId(
+            Long userId,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        return eventRepository.findByAttendeeId(userId, from, to).stream()
+                .map(eventMapper::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -190,19 +355,12 @@ public class RegistrationStatusService {
             Long eventId,
             String lastName
     ) {
-        String cacheKey =
-                CACHE_KEY_PREFIX + ":confirmedUsers:eventId=" + eventId + ",lastName=" + lastName;
-        List<ConfirmedUserDto> cachedResult = (List<ConfirmedUserDto>) inMemoryCache.get(cacheKey);
-        if (cachedResult != null) {
-            return cachedResult;
-        }
-
-        List<ConfirmedUserDto> confirmedUsers
-                = registrationStatusRepository.findConfirmedUsersByEventIdAndLastName(
+        return confirmedUsersCache.get(
+                new EventLastNameKey(eventId, lastName),
                 eventId,
-                lastName
-        );
-        inMemoryCache.put(cacheKey, confirmedUsers);
-        return confirmedUsers;
+                key -> registrationStatusRepository.findConfirmedUsersByEventIdAndLastName(
+                        key.eventId(),
+                        key.lastName()
+                ));
     }
 }
\ No newline at end of file
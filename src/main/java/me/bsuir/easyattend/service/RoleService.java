@@ -1,9 +1,15 @@
 package me.bsuir.easyattend.service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import me.bsuir.easyattend.dto.create.RoleCreateDto;
 import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.projection.UserRoleProjection;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.RoleMapper;
 import me.bsuir.easyattend.model.Role;
@@ -32,6 +38,23 @@ public class RoleService {
         return roleMapper.toDto(role);
     }
 
+    /**
+     * Roles of every user in {@code userIds}, read with one query. Users without roles
+     * map to an empty set.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Set<RoleGetDto>> getRolesByUserIds(Collection<Long> userIds) {
+        Map<Long, Set<RoleGetDto>> rolesByUser = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return rolesByUser;
+        }
+        userIds.forEach(userId -> rolesByUser.put(userId, new HashSet<>()));
+        for (UserRoleProjection role : roleRepository.findRolesByUserIdIn(userIds)) {
+            rolesByUser.get(role.userId()).add(roleMapper.toDto(role));
+        }
+        return rolesByUser;
+    }
+
     @Transactional(readOnly = true)
     public List<RoleGetDto> getAllRoles() {
         List<Role> roles = roleRepository.findAll();
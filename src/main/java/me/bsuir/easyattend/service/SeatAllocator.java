@@ -0,0 +1,121 @@
+package me.bsuir.easyattend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.repository.EventRepository;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a registration gets a seat of a capacity-limited event. The number of
+ * taken seats is kept in {@code events.confirmed_count} and changed only by conditional
+ * UPDATE statements, so the check and the increment are one atomic step and an event
+ * cannot be overbooked however many registrations arrive at once. Only the row of that
+ * event is locked, and only until the registering transaction commits.
+ *
+ * <p>Must be called inside the transaction that writes the registration.
+ */
+@Component
+public class SeatAllocator {
+
+    private final EventRepository eventRepository;
+    private final RegistrationStatusRepository registrationStatusRepository;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    @Autowired
+    public SeatAllocator(
+            EventRepository eventRepository,
+            RegistrationStatusRepository registrationStatusRepository,
+            RegistrationCacheInvalidator registrationCacheInvalidator
+    ) {
+        this.eventRepository = eventRepository;
+        this.registrationStatusRepository = registrationStatusRepository;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
+    }
+
+    /**
+     * Status a new registration actually gets. A CONFIRMED request takes a seat, or is put
+     * on the waiting list when the event is full; other statuses need no seat.
+     */
+    public RegistrationStatusType claim(Long eventId, RegistrationStatusType requested) {
+        if (requested != RegistrationStatusType.CONFIRMED) {
+            return requested;
+        }
+        return eventRepository.takeSeat(eventId) == 1
+                ? RegistrationStatusType.CONFIRMED
+                : RegistrationStatusType.WAITING_LIST;
+    }
+
+    /**
+     * {@link #claim} for many registrations to one event. The event row is locked once
+     * for the whole batch instead of being updated per registration; CONFIRMED requests
+     * get the free seats in list order.
+     */
+    public List<RegistrationStatusType> claimAll(
+            Long eventId,
+            List<RegistrationStatusType> requested
+    ) {
+        Event event = eventRepository.findByIdForUpdate(eventId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Event not found with id " + eventId));
+        int free = event.getCapacity() == null
+                ? Integer.MAX_VALUE
+                : event.getCapacity() - event.getConfirmedCount();
+
+        List<RegistrationStatusType> granted = new ArrayList<>(requested.size());
+        int taken = 0;
+        for (RegistrationStatusType status : requested) {
+            if (status != RegistrationStatusType.CONFIRMED) {
+                granted.add(status);
+            } else if (taken < free) {
+                granted.add(RegistrationStatusType.CONFIRMED);
+                taken++;
+            } else {
+                granted.add(RegistrationStatusType.WAITING_LIST);
+            }
+        }
+        if (taken > 0) {
+            eventRepository.takeSeats(eventId, taken);
+        }
+        return granted;
+    }
+
+    /**
+     * {@code seats} CONFIRMED registrations of the event were cancelled, deleted or moved
+     * away. Each seat goes to the oldest waiting registration, in FIFO order; seats nobody
+     * is waiting for become free.
+     */
+    public void release(Long eventId, int seats) {
+        if (seats <= 0) {
+            return;
+        }
+        int promoted = registrationStatusRepository.promoteWaiting(eventId, seats);
+        if (promoted > 0) {
+            registrationCacheInvalidator.registrationChanged(eventId, null);
+        }
+        if (promoted < seats) {
+            eventRepository.releaseSeats(eventId, seats - promoted);
+        }
+    }
+
+    /**
+     * The capacity of the event was raised to leave {@code freeSeats} seats free. Moves up
+     * to that many waiting registrations to CONFIRMED, oldest first. The caller holds the
+     * row lock of the event, taken by updating or by locking it, so no concurrent
+     * {@link #claim} can take those seats first.
+     */
+    public void seatsAdded(Long eventId, int freeSeats) {
+        if (freeSeats <= 0) {
+            return;
+        }
+        int promoted = registrationStatusRepository.promoteWaiting(eventId, freeSeats);
+        if (promoted > 0) {
+            eventRepository.takeSeats(eventId, promoted);
+            registrationCacheInvalidator.registrationChanged(eventId, null);
+        }
+    }
+}
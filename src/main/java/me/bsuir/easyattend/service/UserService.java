@@ -1,13 +1,23 @@
 package me.bsuir.easyattend.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import me.bsuir.easyattend.dto.create.UserCreateDto;
+import me.bsuir.easyattend.dto.create.UserPatchDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
 import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.get.UserBulkResultDto;
 import me.bsuir.easyattend.dto.get.UserGetDto;
+import me.bsuir.easyattend.dto.projection.UserProjection;
+import me.bsuir.easyattend.exception.DuplicateEntityException;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.RoleMapper;
 import me.bsuir.easyattend.mapper.UserMapper;
@@ -18,57 +28,114 @@ import me.bsuir.easyattend.repository.EventRepository;
 import me.bsuir.easyattend.repository.RegistrationStatusRepository;
 import me.bsuir.easyattend.repository.RoleRepository;
 import me.bsuir.easyattend.repository.UserRepository;
+import me.bsuir.easyattend.utils.PageCursor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class UserService {
 
+    static final int BULK_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
     private final RoleMapper roleMapper;
+    private final RoleService roleService;
+    private final RegistrationCacheInvalidator registrationCacheInvalidator;
+    private final MissingIdCache missingIdCache;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public UserService(
             UserRepository userRepository,
             UserMapper userMapper,
             RoleRepository roleRepository,
-            PasswordEncoder passwordEncoder,
             RoleService roleService,
             RoleMapper roleMapper,
             EventRepository eventRepository,
-            RegistrationStatusRepository registrationStatusRepository
+            RegistrationStatusRepository registrationStatusRepository,
+            RegistrationCacheInvalidator registrationCacheInvalidator,
+            MissingIdCache missingIdCache,
+            PasswordHashingService passwordHashingService,
+            TransactionTemplate transactionTemplate
     ) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.roleRepository = roleRepository;
-        this.passwordEncoder = passwordEncoder;
         this.roleMapper = roleMapper;
+        this.roleService = roleService;
+        this.registrationCacheInvalidator = registrationCacheInvalidator;
+        this.missingIdCache = missingIdCache;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Transactional(readOnly = true)
     public UserGetDto getUserById(Long id) {
-        return userRepository.findById(id)
-                .map(userMapper::toDto)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
+        if (missingIdCache.isMissing(User.class, id)) {
+            throw new ResourceNotFoundException("User not found with id " + id);
+        }
+        UserProjection user = userRepository.findProjectionById(id)
+                .orElseThrow(() -> {
+                    missingIdCache.markMissing(User.class, id);
+                    return new ResourceNotFoundException("User not found with id " + id);
+                });
+        return toDtos(List.of(user)).get(0);
     }
 
-    @Transactional(readOnly = true)
-    public List<UserGetDto> getAllUsers() {
-        List<User> users = userRepository.findAll();
+    private List<UserGetDto> toDtos(List<UserProjection> users) {
+        Map<Long, Set<RoleGetDto>> roles = roleService.getRolesByUserIds(
+                users.stream().map(UserProjection::id).toList());
         return users.stream()
-                .map(userMapper::toDto)
+                .map(user -> {
+                    UserGetDto dto = userMapper.toDto(user);
+                    dto.setRoles(roles.get(user.id()));
+                    return dto;
+                })
                 .toList();
     }
 
-    @Transactional
+    /**
+     * Users ordered by id. {@code cursor} is the {@code nextCursor} of the previous page,
+     * or {@code null} for the first one.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserGetDto> getUsers(String cursor, int size) {
+        PageCursor.checkPageSize(size);
+        Long afterId = cursor == null ? 0L : PageCursor.decode(cursor, parts -> Long.valueOf(parts[0]));
+        // one extra row tells whether there is a next page without a count query
+        List<UserProjection> users = userRepository.findPageAfter(
+                afterId, PageRequest.ofSize(size + 1));
+
+        String nextCursor = null;
+        if (users.size() > size) {
+            users = users.subList(0, size);
+            nextCursor = PageCursor.encode(users.get(size - 1).id());
+        }
+        return new CursorPage<>(toDtos(users), nextCursor);
+    }
+
+    /**
+     * Creates a user. The password is hashed before the transaction starts, so that no
+     * connection is held while waiting for the hashing pool.
+     */
     public UserGetDto createUser(UserCreateDto userCreateDto) {
+        String password = passwordHashingService.hash(userCreateDto.getPassword());
+        return transactionTemplate.execute(status -> insertUser(userCreateDto, password));
+    }
+
+    private UserGetDto insertUser(UserCreateDto userCreateDto, String password) {
         User user = userMapper.toEntity(userCreateDto);
-        user.setPassword(passwordEncoder.encode(userCreateDto.getPassword()));
+        user.setPassword(password);
         user.setRegistrationDate(LocalDateTime.now());
 
         Set<Role> roles = new HashSet<>();
@@ -90,71 +157,171 @@ public class UserService {
         user.setRoles(roles);
 
         User savedUser = userRepository.save(user);
-        UserGetDto userDto = userMapper.toDto(savedUser);
-        Set<RoleGetDto> roleGetDtos = savedUser.getRoles().stream()
-                .map(roleMapper::toDto)
-                .collect(Collectors.toSet());
-        userDto.setRoles(roleGetDtos);
-
-        return userDto;
+        missingIdCache.created(User.class, savedUser.getId());
+        return toDtoWithRoles(savedUser);
     }
 
-    @Transactional
-    public List<UserGetDto> createUsersBulk(List<UserCreateDto> userCreateDtos) {
-        List<User> usersToCreate = userCreateDtos.stream()
-                .filter(dto -> userRepository.findByUsername(dto.getUsername()).isEmpty())
-                .map(dto -> {
-                    User user = userMapper.toEntity(dto);
-                    user.setPassword(passwordEncoder.encode(dto.getPassword()));
-                    user.setRegistrationDate(LocalDateTime.now());
-
-                    Set<Role> roles = new HashSet<>();
-                    if (dto.getRoleIds() != null && !dto.getRoleIds().isEmpty()) {
-                        roles = dto.getRoleIds().stream()
-                                .map(roleId -> roleRepository.findById(roleId)
-                                        .orElseThrow(() -> new ResourceNotFoundException("Role not found with id " + roleId)))
-                                .collect(Collectors.toSet());
-                    } else {
-                        Role userRole = roleRepository.findByName(RoleType.USER)
-                                .orElseGet(() -> {
-                                    Role newRole = new Role();
-                                    newRole.setName(RoleType.USER);
-                                    return roleRepository.save(newRole);
-                                });
-                        roles.add(userRole);
-                    }
-                    user.setRoles(roles);
-
-                    return user;
+    /**
+     * Imports users row by row without failing the whole request for a bad row. Usernames
+     * and roles are checked with one query each, passwords are hashed in parallel before
+     * any transaction is opened, and the accepted rows are inserted in chunks of
+     * {@value #BULK_CHUNK_SIZE}, each in its own transaction. A chunk that fails to insert
+     * (e.g. a username taken concurrently) is retried row by row, so that only the rows
+     * at fault are reported as failed.
+     *
+     * @return one result per row, in request order
+     */
+    public List<UserBulkResultDto> createUsersBulk(List<UserCreateDto> userCreateDtos) {
+        UserBulkResultDto[] results = new UserBulkResultDto[userCreateDtos.size()];
+
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(
+                userCreateDtos.stream()
+                        .map(UserCreateDto::getUsername)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())));
+        Map<Long, Role> rolesById = roleRepository.findAllById(
+                        userCreateDtos.stream()
+                                .filter(dto -> dto.getRoleIds() != null)
+                                .flatMap(dto -> dto.getRoleIds().stream())
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Role::getId, Function.identity()));
+        Role defaultRole = userCreateDtos.stream().anyMatch(UserService::hasNoRoles)
+                ? roleRepository.findByName(RoleType.USER).orElseGet(() -> {
+                    Role newRole = new Role();
+                    newRole.setName(RoleType.USER);
+                    return roleRepository.save(newRole);
                 })
-                .toList();
+                : null;
+
+        List<Integer> acceptedRows = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < userCreateDtos.size(); i++) {
+            UserCreateDto dto = userCreateDtos.get(i);
+            String error = checkBulkRow(dto, takenUsernames, rolesById);
+            if (error != null) {
+                results[i] = UserBulkResultDto.failed(i, dto.getUsername(), error);
+                continue;
+            }
+            takenUsernames.add(dto.getUsername());
 
-        if (usersToCreate.isEmpty()) {
-            throw new IllegalArgumentException("No new users to create. All provided users already exist.");
+            User user = userMapper.toEntity(dto);
+            user.setRegistrationDate(LocalDateTime.now());
+            user.setRoles(hasNoRoles(dto)
+                    ? new HashSet<>(Set.of(defaultRole))
+                    : dto.getRoleIds().stream()
+                            .map(rolesById::get)
+                            .collect(Collectors.toSet()));
+            acceptedRows.add(i);
+            users.add(user);
         }
 
-        List<User> savedUsers = userRepository.saveAll(usersToCreate);
-        return savedUsers.stream()
-                .map(savedUser -> {
-                    UserGetDto userDto = userMapper.toDto(savedUser);
-                    Set<RoleGetDto> roleGetDtos = savedUser.getRoles().stream()
-                            .map(roleMapper::toDto)
-                            .collect(Collectors.toSet());
-                    userDto.setRoles(roleGetDtos);
-                    return userDto;
-                })
-                .collect(Collectors.toList());
+        List<String> hashes = passwordHashingService.hashAll(acceptedRows.stream()
+                .map(row -> userCreateDtos.get(row).getPassword())
+                .toList());
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setPassword(hashes.get(i));
+        }
+
+        for (int from = 0; from < users.size(); from += BULK_CHUNK_SIZE) {
+            int to = Math.min(from + BULK_CHUNK_SIZE, users.size());
+            List<User> chunk = users.subList(from, to);
+            List<Integer> chunkRows = acceptedRows.subList(from, to);
+            try {
+                List<User> saved = transactionTemplate.execute(status -> insert(chunk));
+                for (int i = 0; i < saved.size(); i++) {
+                    int row = chunkRows.get(i);
+                    results[row] = UserBulkResultDto.created(row, toDtoWithRoles(saved.get(i)));
+                }
+            } catch (DataAccessException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    int row = chunkRows.get(i);
+                    results[row] = insertBulkRow(row, chunk.get(i));
+                }
+            }
+        }
+        return List.of(results);
     }
 
-    @Transactional
+    private List<User> insert(List<User> users) {
+        List<User> inserted = userRepository.saveAll(users);
+        inserted.forEach(user -> missingIdCache.created(User.class, user.getId()));
+        return inserted;
+    }
+
+    private UserBulkResultDto insertBulkRow(int row, User user) {
+        // the rolled back chunk may already have assigned an id
+        user.setId(null);
+        user.setVersion(0);
+        try {
+            User saved = transactionTemplate.execute(status -> insert(List.of(user))).get(0);
+            return UserBulkResultDto.created(row, toDtoWithRoles(saved));
+        } catch (DataAccessException e) {
+            String error = isUsernameKey(e)
+                    ? "Username already exists: " + user.getUsername()
+                    : "Could not be saved: " + e.getMostSpecificCause().getMessage();
+            return UserBulkResultDto.failed(row, user.getUsername(), error);
+        }
+    }
+
+    private static String checkBulkRow(
+            UserCreateDto dto,
+            Set<String> takenUsernames,
+            Map<Long, Role> rolesById
+    ) {
+        if (dto.getUsername() == null || dto.getUsername().isBlank()) {
+            return "Username cannot be blank";
+        }
+        if (dto.getPassword() == null || dto.getPassword().isBlank()) {
+            return "Password cannot be blank";
+        }
+        if (takenUsernames.contains(dto.getUsername())) {
+            return "Username already exists: " + dto.getUsername();
+        }
+        if (!hasNoRoles(dto)) {
+            for (Long roleId : dto.getRoleIds()) {
+                if (!rolesById.containsKey(roleId)) {
+                    return "Role not found with id " + roleId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasNoRoles(UserCreateDto dto) {
+        return dto.getRoleIds() == null || dto.getRoleIds().isEmpty();
+    }
+
+    private UserGetDto toDtoWithRoles(User user) {
+        UserGetDto userDto = userMapper.toDto(user);
+        userDto.setRoles(user.getRoles().stream()
+                .map(roleMapper::toDto)
+                .collect(Collectors.toSet()));
+        return userDto;
+    }
+
+    /**
+     * Replaces a user. A new password is hashed before the transaction starts.
+     */
     public UserGetDto updateUser(Long id, UserCreateDto userCreateDto) {
+        String rawPassword = userCreateDto.getPassword();
+        String password = rawPassword == null || rawPassword.isEmpty()
+                ? null : passwordHashingService.hash(rawPassword);
+        return transactionTemplate.execute(status -> replaceUser(id, userCreateDto, password));
+    }
+
+    private UserGetDto replaceUser(Long id, UserCreateDto userCreateDto, String password) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
 
+        String previousLastName = user.getLastName();
         userMapper.updateUserFromDto(userCreateDto, user);
+        if (!Objects.equals(previousLastName, user.getLastName())) {
+            registrationCacheInvalidator.userChanged();
+        }
 
-        if (userCreateDto.getPassword() != null && !userCreateDto.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(userCreateDto.getPassword()));
+        if (password != null) {
+            user.setPassword(password);
         }
 
         if (userCreateDto.getRoleIds() != null) {
@@ -171,10 +338,73 @@ public class UserService {
         return userMapper.toDto(updatedUser);
     }
 
+    /**
+     * Applies the given fields with one conditional UPDATE, without loading the user, if
+     * it is still at the version the client read. A new password is hashed before the
+     * transaction starts.
+     *
+     * @throws OptimisticLockingFailureException if the user changed since
+     * @throws DuplicateEntityException if the new username is taken
+     */
+    public UserGetDto patchUser(Long id, UserPatchDto userPatchDto) {
+        String password = userPatchDto.getPassword() == null
+                ? null : passwordHashingService.hash(userPatchDto.getPassword());
+        return transactionTemplate.execute(status -> applyPatch(id, userPatchDto, password));
+    }
+
+    private UserGetDto applyPatch(Long id, UserPatchDto userPatchDto, String password) {
+        long version = userPatchDto.getVersion();
+        Optional<UserRepository.Patched> patched;
+        try {
+            patched = userRepository.patch(
+                    id,
+                    version,
+                    userPatchDto.getUsername(),
+                    password,
+                    userPatchDto.getEmail(),
+                    userPatchDto.getFirstName(),
+                    userPatchDto.getLastName());
+        } catch (DataIntegrityViolationException e) {
+            throw usernameTaken(e, userPatchDto.getUsername());
+        }
+        if (patched.isEmpty()) {
+            Long current = userRepository.findVersionById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
+            throw new OptimisticLockingFailureException(
+                    "User " + id + " is at version " + current + ", not " + version);
+        }
+        if (!Objects.equals(patched.get().getPreviousLastName(), patched.get().getLastName())) {
+            registrationCacheInvalidator.userChanged();
+        }
+        return getUserById(id);
+    }
+
+    /**
+     * {@link DuplicateEntityException} if the write violated the username unique key,
+     * the violation itself if it was another constraint.
+     */
+    private static RuntimeException usernameTaken(
+            DataIntegrityViolationException e,
+            String username
+    ) {
+        if (username != null && isUsernameKey(e)) {
+            return new DuplicateEntityException("Username " + username + " is already taken");
+        }
+        return e;
+    }
+
+    private static boolean isUsernameKey(DataAccessException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        return e instanceof DataIntegrityViolationException
+                && User.UK_USERNAME.equalsIgnoreCase(constraint);
+    }
+
     @Transactional
     public void deleteUser(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
         userRepository.delete(user);
+        registrationCacheInvalidator.userChanged();
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package me.bsuir.easyattend.utils;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one cache region. {@link LongAdder}s keep recording cheap on the hot path;
+ * the totals are only summed when a {@link Snapshot} is taken.
+ */
+public final class CacheStats {
+
+    public enum RemovalCause {
+        /** Removed by evict, evictGroup or clear. */
+        EXPLICIT,
+        /** Overwritten by a put for the same key. */
+        REPLACED,
+        /** Pushed out because its segment was over its entry count or weight budget. */
+        SIZE,
+        /** Outlived its TTL. */
+        EXPIRED
+    }
+
+    public record Snapshot(
+            String name,
+            long size,
+            long weight,
+            long hits,
+            long misses,
+            double hitRate,
+            long loadSuccessCount,
+            long loadFailureCount,
+            double averageLoadMillis,
+            long rejectedCount,
+            Map<RemovalCause, Long> evictions
+    ) {
+    }
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final Map<RemovalCause, LongAdder> removals = new EnumMap<>(RemovalCause.class);
+
+    public CacheStats() {
+        for (RemovalCause cause : RemovalCause.values()) {
+            removals.put(cause, new LongAdder());
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoad(long nanos, boolean success) {
+        (success ? loadSuccesses : loadFailures).increment();
+        totalLoadNanos.add(nanos);
+    }
+
+    void recordRejection() {
+        rejections.increment();
+    }
+
+    void recordRemoval(RemovalCause cause) {
+        removals.get(cause).increment();
+    }
+
+    void recordRemovals(RemovalCause cause, long count) {
+        removals.get(cause).add(count);
+    }
+
+    public Snapshot snapshot(String name, long size, long weight) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        long successCount = loadSuccesses.sum();
+        long failureCount = loadFailures.sum();
+        long loads = successCount + failureCount;
+
+        Map<RemovalCause, Long> evictions = new EnumMap<>(RemovalCause.class);
+        removals.forEach((cause, count) -> evictions.put(cause, count.sum()));
+
+        return new Snapshot(
+                name,
+                size,
+                weight,
+                hitCount,
+                missCount,
+                requests == 0 ? 0.0 : (double) hitCount / requests,
+                successCount,
+                failureCount,
+                loads == 0 ? 0.0
+                        : (double) totalLoadNanos.sum() / loads / TimeUnit.MILLISECONDS.toNanos(1),
+                rejections.sum(),
+                Collections.unmodifiableMap(evictions));
+    }
+}
@@ -0,0 +1,19 @@
+package me.bsuir.easyattend.utils;
+
+/**
+ * Estimates how many bytes of heap a cache entry retains. Called once per put, outside
+ * of any segment lock; the result is only used for the weight budget of the region, so
+ * a cheap approximation is preferable to an exact measurement.
+ */
+@FunctionalInterface
+public interface CacheWeigher<K, V> {
+
+    long weigh(K key, V value);
+
+    /**
+     * Weighs every entry as zero, leaving the region bounded by entry count only.
+     */
+    static <K, V> CacheWeigher<K, V> unweighted() {
+        return (key, value) -> 0;
+    }
+}
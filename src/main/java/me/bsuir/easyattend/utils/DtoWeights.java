@@ -0,0 +1,109 @@
+package me.bsuir.easyattend.utils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
+import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.get.UserGetDto;
+
+/**
+ * Rough shallow-plus-children size estimates of the cached DTOs, assuming a 64-bit JVM
+ * with compressed references and compact (Latin-1) strings. Good enough to tell a
+ * 20k-row attendee list from an empty one; not meant to be byte-exact.
+ */
+public final class DtoWeights {
+
+    private static final long OBJECT_HEADER = 16;
+    private static final long REFERENCE = 4;
+    private static final long BOXED_LONG = 16;
+    private static final long STRING = 40;
+    private static final long LOCAL_DATE_TIME = 72;
+    private static final long LIST = 40;
+    private static final long HASH_SET = 64;
+    private static final long HASH_SET_ENTRY = 32;
+
+    private DtoWeights() {
+    }
+
+    public static long ofConfirmedUsers(EventLastNameKey key, List<ConfirmedUserDto> users) {
+        return ofKey(key) + ofList(users, DtoWeights::of);
+    }
+
+    public static long ofRegistrationStatuses(EventLastNameKey key,
+                                              List<RegistrationStatusGetDto> statuses) {
+        return ofKey(key) + ofList(statuses, DtoWeights::of);
+    }
+
+    static long of(ConfirmedUserDto user) {
+        return OBJECT_HEADER + 3 * REFERENCE
+                + BOXED_LONG
+                + of(user.getFirstName())
+                + of(user.getLastName());
+    }
+
+    static long of(RegistrationStatusGetDto status) {
+        return OBJECT_HEADER + 5 * REFERENCE
+                + BOXED_LONG
+                + of(status.getEvent())
+                + of(status.getUser())
+                + of(status.getStatus())
+                + LOCAL_DATE_TIME;
+    }
+
+    static long of(EventGetDto event) {
+        if (event == null) {
+            return 0;
+        }
+        return OBJECT_HEADER + 6 * REFERENCE
+                + BOXED_LONG
+                + of(event.getTitle())
+                + of(event.getDescription())
+                + LOCAL_DATE_TIME
+                + of(event.getLocation())
+                + of(event.getOrganizer());
+    }
+
+    static long of(UserGetDto user) {
+        if (user == null) {
+            return 0;
+        }
+        return OBJECT_HEADER + 7 * REFERENCE
+                + BOXED_LONG
+                + of(user.getUsername())
+                + of(user.getEmail())
+                + of(user.getFirstName())
+                + of(user.getLastName())
+                + LOCAL_DATE_TIME
+                + ofRoles(user.getRoles());
+    }
+
+    private static long ofRoles(Set<RoleGetDto> roles) {
+        if (roles == null) {
+            return 0;
+        }
+        // role DTOs are tiny; count the set and a header per element
+        return HASH_SET + roles.size() * (HASH_SET_ENTRY + OBJECT_HEADER + 2 * REFERENCE);
+    }
+
+    private static long ofKey(EventLastNameKey key) {
+        return OBJECT_HEADER + 2 * REFERENCE + BOXED_LONG + of(key.lastName());
+    }
+
+    private static <T> long ofList(List<T> list, ToLongFunction<T> element) {
+        if (list == null) {
+            return 0;
+        }
+        long weight = LIST + list.size() * REFERENCE;
+        for (T item : list) {
+            weight += item == null ? 0 : element.applyAsLong(item);
+        }
+        return weight;
+    }
+
+    private static long of(String value) {
+        return value == null ? 0 : STRING + value.length();
+    }
+}
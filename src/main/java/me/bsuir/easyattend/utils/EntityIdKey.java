@@ -0,0 +1,7 @@
+package me.bsuir.easyattend.utils;
+
+/**
+ * Cache key for lookups of a single entity of {@code type} by id.
+ */
+public record EntityIdKey(Class<?> type, Long id) {
+}
@@ -0,0 +1,7 @@
+package me.bsuir.easyattend.utils;
+
+/**
+ * Cache key for lookups filtered by event and user last name.
+ */
+public record EventLastNameKey(Long eventId, String lastName) {
+}
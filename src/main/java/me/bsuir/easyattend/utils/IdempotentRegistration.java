@@ -0,0 +1,30 @@
+package me.bsuir.easyattend.utils;
+
+import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
+
+/**
+ * Cached outcome of a registration request sent with an idempotency key, together with
+ * the request it answered.
+ */
+public record IdempotentRegistration(
+        Long eventId,
+        Long userId,
+        String status,
+        RegistrationStatusRefDto response
+) {
+
+    public static IdempotentRegistration of(
+            RegistrationStatusCreateDto request,
+            RegistrationStatusRefDto response
+    ) {
+        return new IdempotentRegistration(
+                request.getEventId(), request.getUserId(), request.getStatus(), response);
+    }
+
+    public boolean answers(RegistrationStatusCreateDto request) {
+        return eventId.equals(request.getEventId())
+                && userId.equals(request.getUserId())
+                && status.equals(request.getStatus());
+    }
+}
@@ -1,117 +1,598 @@
 package me.bsuir.easyattend.utils;
 
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import lombok.Getter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
-
-@SuppressWarnings("squid:S6829")
-@Component
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import me.bsuir.easyattend.utils.CacheStats.RemovalCause;
+
+/**
+ * Thread-safe bounded cache with TTL. One instance backs one named cache region
+ * (see {@code CacheConfig}), each with its own TTL, capacity and eviction policy.
+ *
+ * <p>Keys are spread over independently locked segments, each of which keeps its
+ * own access-ordered map and capacity. Threads working on different segments never
+ * contend, and eviction is LRU within a segment (approximate LRU for the cache).
+ *
+ * <p>Entries may be put with a group (for example all filtered lookups of one event).
+ * A secondary index maps each group to its keys, so {@link #evictGroup(Object)} costs
+ * only the number of entries in that group instead of a scan over the whole cache.
+ *
+ * <p>Expiry is exact on read. Physical removal is driven by a {@link TimingWheel} per
+ * segment, advanced by writers and by one ticker thread shared by all cache instances,
+ * so expired entries are dropped within one tick without scanning the segments.
+ *
+ * <p>{@link #get(Object, Object, Function)} loads missing values with single-flight
+ * semantics: concurrent misses for one key wait for a single loader call.
+ *
+ * <p>Besides the entry count, a region can be bounded by estimated weight in bytes as
+ * reported by a {@link CacheWeigher}. The weight is tracked for the whole region, so
+ * a few heavy entries may share one segment. A put that takes the region over budget
+ * makes the segments give up entries in eviction order until it fits again, keeping the
+ * entry just put. An entry heavier than {@code maxEntryWeight} is not cached at all, so
+ * one huge value cannot flush the many small ones.
+ *
+ * <p>Hits, misses, load times and removals are counted in {@link CacheStats} and read
+ * through {@link #stats()}; individual operations are not logged.
+ */
 public class InMemoryCache<K, V> {
 
-    private static final Logger logger = LoggerFactory.getLogger(InMemoryCache.class);
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_ENTRIES_PER_SEGMENT = 16;
+    private static final long MIN_TICK_MILLIS = 10;
+    private static final long MAX_TICK_MILLIS = 1000;
+    private static final int TICKS_PER_TTL = 64;
+
+    private static final ScheduledExecutorService EXPIRY_TICKER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Which entry a full segment gives up: the least recently read one (LRU) or the
+     * oldest written one (FIFO, cheaper for rarely repeated lookups).
+     */
+    public enum EvictionPolicy {
+        LRU,
+        FIFO
+    }
 
-    private static class CacheEntry<V> {
-        @Getter
+    private static class CacheEntry<K, V> {
+        private final K key;
         private final V value;
         private final long expiryTime;
+        private final Object group;
+        private final long weight;
 
-        public CacheEntry(V value, long expiryTime) {
+        public CacheEntry(K key, V value, long expiryTime, Object group, long weight) {
+            this.key = key;
             this.value = value;
             this.expiryTime = expiryTime;
+            this.group = group;
+            this.weight = weight;
         }
 
-        public boolean isExpired() {
-            return System.currentTimeMillis() >= expiryTime;
+        public V getValue() {
+            return value;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiryTime;
         }
     }
 
-    private final Map<K, CacheEntry<V>> cache;
+    private final String name;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final Map<Object, Set<K>> groupIndex = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final CacheStats stats = new CacheStats();
     private final long ttlMillis;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final int maxCacheSize;
+    private final CacheWeigher<? super K, ? super V> weigher;
+    private final long maxWeight;
+    private final long maxEntryWeight;
+    private final AtomicLong weight = new AtomicLong();
+    private final ScheduledFuture<?> expiryTask;
 
-    public InMemoryCache(@Value("${cache.ttlMillis:300000}") long ttlMillis,
-                         @Value("${cache.maxSize:1000}") int maxCacheSize) {
+    public InMemoryCache(String name, long ttlMillis, int maxCacheSize) {
+        this(name, ttlMillis, maxCacheSize, EvictionPolicy.LRU);
+    }
+
+    public InMemoryCache(String name, long ttlMillis, int maxCacheSize,
+                         EvictionPolicy evictionPolicy) {
+        this(name, ttlMillis, maxCacheSize, evictionPolicy,
+                Long.MAX_VALUE, CacheWeigher.unweighted());
+    }
+
+    /**
+     * @param maxWeight upper bound for the summed {@code weigher} estimates of all entries;
+     *                  applies on top of {@code maxCacheSize}
+     */
+    public InMemoryCache(String name, long ttlMillis, int maxCacheSize,
+                         EvictionPolicy evictionPolicy, long maxWeight,
+                         CacheWeigher<? super K, ? super V> weigher) {
+        this(name, ttlMillis, maxCacheSize, evictionPolicy, maxWeight, maxWeight, weigher);
+    }
+
+    /**
+     * @param maxWeight      upper bound for the summed {@code weigher} estimates of all
+     *                       entries; applies on top of {@code maxCacheSize}
+     * @param maxEntryWeight heaviest single entry that is still cached, at most
+     *                       {@code maxWeight}
+     */
+    public InMemoryCache(String name, long ttlMillis, int maxCacheSize,
+                         EvictionPolicy evictionPolicy, long maxWeight, long maxEntryWeight,
+                         CacheWeigher<? super K, ? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        if (maxEntryWeight <= 0 || maxEntryWeight > maxWeight) {
+            throw new IllegalArgumentException("maxEntryWeight must be in (0, maxWeight]");
+        }
+        this.name = name;
         this.ttlMillis = ttlMillis;
-        this.maxCacheSize = maxCacheSize;
-        this.cache = new BoundedLinkedHashMap<>(maxCacheSize);
-        scheduler.scheduleAtFixedRate(
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+        this.maxEntryWeight = maxEntryWeight;
+
+        int segmentCount = segmentCountFor(maxCacheSize);
+        int segmentCapacity = Math.max(1, (maxCacheSize + segmentCount - 1) / segmentCount);
+        long tickMillis = Math.min(MAX_TICK_MILLIS,
+                Math.max(MIN_TICK_MILLIS, ttlMillis / TICKS_PER_TTL));
+        long now = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] created = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            created[i] = new Segment<>(
+                    segmentCapacity, evictionPolicy, this::onRemoval, tickMillis, now);
+        }
+        this.segments = created;
+        this.segmentMask = segmentCount - 1;
+
+        this.expiryTask = EXPIRY_TICKER.scheduleAtFixedRate(
                 this::evictExpiredEntries,
-                ttlMillis,
-                ttlMillis,
+                tickMillis,
+                tickMillis,
                 TimeUnit.MILLISECONDS
         );
     }
 
+    public String getName() {
+        return name;
+    }
+
+    @PreDestroy
+    public void close() {
+        expiryTask.cancel(false);
+    }
+
     public V get(K key) {
-        CacheEntry<V> entry = cache.get(key);
-        if (entry == null) {
-            logger.info("Cache miss for key: {}", key);
+        V value = lookup(key);
+        if (value == null) {
+            stats.recordMiss();
             return null;
         }
-        if (entry.isExpired()) {
-            logger.info("Cache entry expired for key: {}", key);
-            cache.remove(key);
-            return null;
+        stats.recordHit();
+        return value;
+    }
+
+    /**
+     * Counters of this region since startup together with its current entry count.
+     */
+    public CacheStats.Snapshot stats() {
+        long size = 0;
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.map.size();
+                weight += segment.weight;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return stats.snapshot(name, size, weight);
+    }
+
+    private V lookup(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = System.currentTimeMillis();
+        segment.lock.lock();
+        try {
+            CacheEntry<K, V> entry = segment.map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                segment.map.remove(key);
+                segment.onRemoval(key, entry, RemovalCause.EXPIRED);
+                return null;
+            }
+            return entry.getValue();
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached value or loads it with {@code loader} and caches it under
+     * {@code group}. Only one load per key runs at a time; concurrent callers that miss
+     * the same key wait for it and share its result or exception.
+     */
+    public V get(K key, Object group, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlightLoads.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // another load may have finished between our miss and claiming the key
+            V value = lookup(key);
+            if (value == null) {
+                long invalidationsBeforeLoad = invalidations.get();
+                value = load(key, loader);
+                // an eviction during the load may have been meant for the data just read
+                if (value != null && invalidations.get() == invalidationsBeforeLoad) {
+                    put(key, value, group);
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            V value = loader.apply(key);
+            success = true;
+            return value;
+        } finally {
+            stats.recordLoad(System.nanoTime() - start, success);
+        }
+    }
+
+    private V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
-        logger.info("Cache hit for key: {}", key);
-        return entry.getValue();
     }
 
     public void put(K key, V value) {
-        CacheEntry<V> entry = new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis);
-        cache.put(key, entry);
-        logger.info("Cache put for key: {}", key);
+        put(key, value, null);
+    }
+
+    /**
+     * Puts a value and registers its key under {@code group} so that it can later be
+     * removed together with the rest of the group by {@link #evictGroup(Object)}.
+     */
+    public void put(K key, V value, Object group) {
+        put(key, value, group, ttlMillis);
+    }
+
+    /**
+     * Same as {@link #put(Object, Object, Object)} but with a TTL for this entry only.
+     * A value heavier than {@code maxEntryWeight} is rejected: it is not cached and the
+     * previous value of the key, now stale, is dropped.
+     */
+    public void put(K key, V value, Object group, long entryTtlMillis) {
+        long entryWeight = weigher.weigh(key, value);
+        long now = System.currentTimeMillis();
+        int slot = segmentIndex(key);
+        Segment<K, V> segment = segments[slot];
+        CacheEntry<K, V> entry;
+        segment.lock.lock();
+        try {
+            segment.expire(now);
+            if (entryWeight > maxEntryWeight) {
+                stats.recordRejection();
+                CacheEntry<K, V> stale = segment.map.remove(key);
+                if (stale != null) {
+                    segment.onRemoval(key, stale, RemovalCause.REPLACED);
+                }
+                return;
+            }
+            entry = new CacheEntry<>(key, value, now + entryTtlMillis, group, entryWeight);
+            CacheEntry<K, V> previous = segment.map.put(key, entry);
+            if (previous != null) {
+                segment.onRemoval(key, previous, RemovalCause.REPLACED);
+            }
+            segment.weight += entryWeight;
+            weight.addAndGet(entryWeight);
+            index(key, entry);
+            segment.wheel.schedule(entry, entry.expiryTime);
+        } finally {
+            segment.lock.unlock();
+        }
+        if (weight.get() > maxWeight) {
+            evictOverweight(slot, entry);
+        }
+    }
+
+    /**
+     * Brings the region back within its budget after {@code kept} was put. Segments are
+     * locked one at a time, starting after the entry's own, which is visited last.
+     */
+    private void evictOverweight(int slot, CacheEntry<K, V> kept) {
+        for (int i = 1; i <= segments.length && weight.get() > maxWeight; i++) {
+            Segment<K, V> segment = segments[(slot + i) & segmentMask];
+            segment.lock.lock();
+            try {
+                segment.evictWhile(() -> weight.get() > maxWeight, kept);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
     }
 
     public void evict(K key) {
-        cache.remove(key);
-        logger.info("Cache evict for key: {}", key);
+        invalidations.incrementAndGet();
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            CacheEntry<K, V> removed = segment.map.remove(key);
+            if (removed != null) {
+                segment.onRemoval(key, removed, RemovalCause.EXPLICIT);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry that was put under {@code group}.
+     */
+    public void evictGroup(Object group) {
+        invalidations.incrementAndGet();
+        Set<K> keys = groupIndex.remove(group);
+        if (keys == null) {
+            return;
+        }
+        for (K key : keys) {
+            Segment<K, V> segment = segmentFor(key);
+            segment.lock.lock();
+            try {
+                CacheEntry<K, V> entry = segment.map.get(key);
+                // the key may have been re-put under another group since it was indexed
+                if (entry != null && group.equals(entry.group)) {
+                    segment.map.remove(key);
+                    segment.onRemoval(key, entry, RemovalCause.EXPLICIT);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of {@code group} whose key matches {@code predicate}. Costs the
+     * size of the group; other groups are not looked at.
+     */
+    public void evictGroupIf(Object group, Predicate<? super K> predicate) {
+        invalidations.incrementAndGet();
+        List<K> candidates = new ArrayList<>();
+        groupIndex.computeIfPresent(group, (g, keys) -> {
+            keys.stream().filter(predicate).forEach(candidates::add);
+            return keys;
+        });
+        for (K key : candidates) {
+            Segment<K, V> segment = segmentFor(key);
+            segment.lock.lock();
+            try {
+                CacheEntry<K, V> entry = segment.map.get(key);
+                if (entry != null && group.equals(entry.group)) {
+                    segment.map.remove(key);
+                    segment.onRemoval(key, entry, RemovalCause.EXPLICIT);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
     }
 
+    /**
+     * Removes every entry. The group index is cleaned per segment under its lock, so a key
+     * put into an already cleared segment keeps its index entry.
+     */
     public void clear() {
-        cache.clear();
-        logger.info("Cache cleared");
+        invalidations.incrementAndGet();
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                stats.recordRemovals(RemovalCause.EXPLICIT, segment.map.size());
+                segment.map.forEach(this::unindex);
+                segment.map.clear();
+                weight.addAndGet(-segment.weight);
+                segment.weight = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
     }
 
     private void evictExpiredEntries() {
-        for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                cache.remove(entry.getKey());
-                logger.info("Cache entry evicted for key: {}", entry.getKey());
+        long now = System.currentTimeMillis();
+        for (Segment<K, V> segment : segments) {
+            // a busy segment is advanced by its own writers, no need to wait for it
+            if (segment.lock.tryLock()) {
+                try {
+                    segment.expire(now);
+                } finally {
+                    segment.lock.unlock();
+                }
             }
         }
     }
 
+    /**
+     * Removes every group whose name starts with {@code pattern}. Only group names are
+     * scanned, never the individual keys.
+     */
     public void evictByPattern(String pattern) {
-        cache.keySet().removeIf(key -> {
-            if (String.valueOf(key).startsWith(pattern)) {
-                logger.info("Cache entry evicted for key: {}", key);
-                return true;
+        for (Object group : groupIndex.keySet()) {
+            if (String.valueOf(group).startsWith(pattern)) {
+                evictGroup(group);
             }
-            return false;
+        }
+    }
+
+    private void index(K key, CacheEntry<K, V> entry) {
+        if (entry.group == null) {
+            return;
+        }
+        // compute() keeps the add atomic with evictGroup's remove() of the same group
+        groupIndex.compute(entry.group, (group, keys) -> {
+            Set<K> result = keys == null ? new HashSet<>() : keys;
+            result.add(key);
+            return result;
+        });
+    }
+
+    private void onRemoval(K key, CacheEntry<K, V> entry, RemovalCause cause) {
+        weight.addAndGet(-entry.weight);
+        unindex(key, entry);
+        stats.recordRemoval(cause);
+    }
+
+    private void unindex(K key, CacheEntry<K, V> entry) {
+        if (entry.group == null) {
+            return;
+        }
+        groupIndex.computeIfPresent(entry.group, (group, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
         });
     }
 
-    private static class BoundedLinkedHashMap<K, V> extends LinkedHashMap<K, V> {
+    private Segment<K, V> segmentFor(K key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(K key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // spread high bits so that keys differing only in upper bits land in different segments
+        hash ^= hash >>> 16;
+        return hash & segmentMask;
+    }
+
+    private static int segmentCountFor(int maxCacheSize) {
+        int bySize = Math.max(1, maxCacheSize / MIN_ENTRIES_PER_SEGMENT);
+        int byCores = Runtime.getRuntime().availableProcessors() * 4;
+        int count = Math.min(MAX_SEGMENTS, Math.min(bySize, byCores));
+        return Integer.highestOneBit(Math.max(1, count));
+    }
+
+    private interface RemovalListener<K, V> {
+        void onRemoval(K key, CacheEntry<K, V> entry, RemovalCause cause);
+    }
+
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<K, CacheEntry<K, V>> map;
+        private final RemovalListener<K, V> listener;
+        private final TimingWheel<CacheEntry<K, V>> wheel;
+        private long weight;
+
+        private Segment(int capacity, EvictionPolicy evictionPolicy,
+                        RemovalListener<K, V> listener, long tickMillis, long nowMillis) {
+            this.map = new BoundedLinkedHashMap<>(
+                    capacity, evictionPolicy == EvictionPolicy.LRU, this::onRemoval);
+            this.listener = listener;
+            this.wheel = new TimingWheel<>(tickMillis, nowMillis);
+        }
+
+        /**
+         * Accounts for an entry that already left {@link #map}. Every removal path goes
+         * through here so the segment weight stays in step with the map.
+         */
+        private void onRemoval(K key, CacheEntry<K, V> entry, RemovalCause cause) {
+            weight -= entry.weight;
+            listener.onRemoval(key, entry, cause);
+        }
+
+        /**
+         * Gives up entries in eviction order (eldest first) while {@code overweight} holds.
+         * The entry just put is skipped; a re-put key keeps its old position under FIFO, so
+         * it is not necessarily the youngest.
+         */
+        private void evictWhile(BooleanSupplier overweight, CacheEntry<K, V> kept) {
+            Iterator<CacheEntry<K, V>> entries = map.values().iterator();
+            while (overweight.getAsBoolean() && entries.hasNext()) {
+                CacheEntry<K, V> entry = entries.next();
+                if (entry != kept) {
+                    entries.remove();
+                    onRemoval(entry.key, entry, RemovalCause.SIZE);
+                }
+            }
+        }
+
+        /**
+         * Drops entries whose timers fired. Timers of entries that were overwritten or
+         * evicted in the meantime are stale and simply ignored.
+         */
+        private void expire(long now) {
+            wheel.advance(now, entry -> {
+                // remove(key, value) matches by identity and, unlike get(), keeps LRU order
+                if (map.remove(entry.key, entry)) {
+                    onRemoval(entry.key, entry, RemovalCause.EXPIRED);
+                }
+            });
+        }
+    }
+
+    private static class BoundedLinkedHashMap<K, V> extends LinkedHashMap<K, CacheEntry<K, V>> {
         private final int maxSize;
+        private final transient RemovalListener<K, V> listener;
 
-        public BoundedLinkedHashMap(int maxSize) {
-            super(16, 0.75f, true);
+        public BoundedLinkedHashMap(int maxSize, boolean accessOrder,
+                                    RemovalListener<K, V> listener) {
+            super(16, 0.75f, accessOrder);
             this.maxSize = maxSize;
+            this.listener = listener;
         }
 
         @Override
-        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-            return size() > maxSize;
+        protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<K, V>> eldest) {
+            if (size() > maxSize) {
+                listener.onRemoval(eldest.getKey(), eldest.getValue(), RemovalCause.SIZE);
+                return true;
+            }
+            return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package me.bsuir.easyattend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor carries the sort key of the last row
+ * of a page; the next page is read with an index seek past it, so every page costs the
+ * same no matter how deep it is.
+ */
+public final class PageCursor {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+    }
+
+    public static String encode(Object... sortKey) {
+        String raw = Arrays.stream(sortKey)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes {@code cursor} and hands its parts to {@code parser}. Any malformed cursor
+     * is reported as {@link IllegalArgumentException}, i.e. a 400 for the client.
+     */
+    public static <T> T decode(String cursor, Function<String[], T> parser) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return parser.apply(raw.split("\\" + SEPARATOR, -1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package me.bsuir.easyattend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel.
+ *
+ * <p>Deadlines are kept in {@value #LEVELS} levels of {@value #SLOTS} slots each; level
+ * {@code n} slots span {@code 64^n} ticks. A timer is placed in the lowest level whose
+ * window still contains its deadline and is cascaded one level down whenever the wheel
+ * reaches its slot, so scheduling is O(1) and every timer is touched at most once per
+ * level before it fires. Deadlines beyond the top level are parked there and re-placed
+ * on each cascade.
+ *
+ * <p>Not thread-safe: callers guard each wheel with their own lock.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private static final class Timer<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Timer(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<List<Timer<T>>> buckets = new ArrayList<>(LEVELS * SLOTS);
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            buckets.add(null);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules {@code item} to be handed out by {@link #advance} once the clock passes
+     * {@code deadlineMillis}. Deadlines in the past fire on the next tick.
+     */
+    public void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        place(new Timer<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, passing every timer that became due
+     * to {@code expired}. Cost is proportional to the elapsed ticks and the timers that
+     * fire or cascade.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            cascade();
+            List<Timer<T>> due = take(0, (int) (currentTick & MASK));
+            if (due == null) {
+                continue;
+            }
+            for (Timer<T> timer : due) {
+                if (timer.deadlineTick <= currentTick) {
+                    size--;
+                    expired.accept(timer.item);
+                } else {
+                    place(timer);
+                }
+            }
+        }
+    }
+
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long lowBits = (1L << (BITS * level)) - 1;
+            if ((currentTick & lowBits) != 0) {
+                continue;
+            }
+            List<Timer<T>> timers = take(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+            if (timers != null) {
+                timers.forEach(this::place);
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        int level = 0;
+        while (level < LEVELS - 1
+                && (timer.deadlineTick >>> (BITS * (level + 1)))
+                != (currentTick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timer.deadlineTick >>> (BITS * level)) & MASK);
+        int index = level * SLOTS + slot;
+        List<Timer<T>> bucket = buckets.get(index);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.set(index, bucket);
+        }
+        bucket.add(timer);
+    }
+
+    private List<Timer<T>> take(int level, int slot) {
+        int index = level * SLOTS + slot;
+        List<Timer<T>> bucket = buckets.get(index);
+        buckets.set(index, null);
+        return bucket;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,50 @@
+package me.bsuir.easyattend.utils;
+
+import java.util.function.Consumer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work to the end of the current transaction, so that caches and in-memory
+ * bookkeeping never get ahead of what other transactions can see. Outside of a
+ * transaction the work runs right away.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Runs {@code action} once the current transaction has committed; not at all if it
+     * rolls back.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} with whether the current transaction committed once it ends, or
+     * right away with {@code true} outside of a transaction.
+     */
+    public static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+-- Entity ids move from IDENTITY columns to sequences handed out 50 at a time
+-- (allocationSize = 50 on the entities), so Hibernate can batch inserts.
+-- On a fresh database this runs before Hibernate creates the tables, so each
+-- table is optional here.
+DO $$
+DECLARE
+    t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['users', 'roles', 'events', 'registration_statuses'] LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50',
+                       t || '_seq');
+
+        IF to_regclass(t) IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', t);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', t);
+            -- the pooled optimizer takes the fetched value as the top of its block of
+            -- 50, so the first block must start above the largest existing id
+            EXECUTE format('SELECT setval(%L, (SELECT COALESCE(MAX(id), 0) FROM %I) + 50, false)',
+                           t || '_seq', t);
+        END IF;
+    END LOOP;
+END
+$$;
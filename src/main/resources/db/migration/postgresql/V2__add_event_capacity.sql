@@ -0,0 +1,28 @@
+-- Events get an optional capacity and a counter of confirmed seats that is only
+-- changed by conditional UPDATEs. Existing events stay unlimited; their counter
+-- starts at the number of registrations already confirmed.
+DO $$
+BEGIN
+    IF to_regclass('events') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE events ADD COLUMN IF NOT EXISTS capacity integer;
+    ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_count integer NOT NULL DEFAULT 0;
+
+    IF to_regclass('registration_statuses') IS NOT NULL THEN
+        UPDATE events e
+        SET confirmed_count = c.confirmed
+        FROM (SELECT event_id, COUNT(*) AS confirmed
+              FROM registration_statuses
+              WHERE status = 'CONFIRMED'
+              GROUP BY event_id) c
+        WHERE c.event_id = e.id;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'chk_events_seats') THEN
+        ALTER TABLE events ADD CONSTRAINT chk_events_seats
+            CHECK (confirmed_count >= 0 AND (capacity IS NULL OR confirmed_count <= capacity));
+    END IF;
+END
+$$;
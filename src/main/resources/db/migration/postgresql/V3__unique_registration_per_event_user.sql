@@ -0,0 +1,30 @@
+-- A user has at most one registration per event. Duplicates left by retried
+-- requests are removed first, keeping the most recent status of each pair, and
+-- the confirmed seat counters are recounted from what is left.
+DO $$
+BEGIN
+    IF to_regclass('registration_statuses') IS NULL THEN
+        RETURN;
+    END IF;
+
+    DELETE FROM registration_statuses rs
+    USING (SELECT id,
+                  row_number() OVER (PARTITION BY event_id, user_id
+                                     ORDER BY status_date DESC, id DESC) AS n
+           FROM registration_statuses) ranked
+    WHERE ranked.id = rs.id AND ranked.n > 1;
+
+    IF to_regclass('events') IS NOT NULL THEN
+        UPDATE events e
+        SET confirmed_count = (SELECT COUNT(*)
+                               FROM registration_statuses rs
+                               WHERE rs.event_id = e.id AND rs.status = 'CONFIRMED');
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'uk_registration_statuses_event_user') THEN
+        ALTER TABLE registration_statuses ADD CONSTRAINT uk_registration_statuses_event_user
+            UNIQUE (event_id, user_id);
+    END IF;
+END
+$$;
@@ -0,0 +1,28 @@
+-- The foreign keys of registration_statuses get fixed names instead of the ones
+-- Hibernate generated, so a violation tells which of the event and the user is
+-- missing. On a fresh database Hibernate creates them with these names.
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    IF to_regclass('registration_statuses') IS NULL THEN
+        RETURN;
+    END IF;
+
+    FOR fk IN
+        SELECT c.conname,
+               CASE a.attname WHEN 'event_id' THEN 'fk_registration_statuses_event'
+                              ELSE 'fk_registration_statuses_user' END AS new_name
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'registration_statuses'::regclass
+          AND c.contype = 'f'
+          AND a.attname IN ('event_id', 'user_id')
+    LOOP
+        IF fk.conname <> fk.new_name THEN
+            EXECUTE format('ALTER TABLE registration_statuses RENAME CONSTRAINT %I TO %I',
+                           fk.conname, fk.new_name);
+        END IF;
+    END LOOP;
+END
+$$;
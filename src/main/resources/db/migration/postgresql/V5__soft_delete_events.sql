@@ -0,0 +1,14 @@
+-- Deleting an event only sets deleted_at; its registrations and then the row itself are
+-- purged in the background. The partial index finds the events still waiting for that
+-- at startup without scanning live ones.
+DO $$
+BEGIN
+    IF to_regclass('events') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE events ADD COLUMN IF NOT EXISTS deleted_at timestamp(6);
+    CREATE INDEX IF NOT EXISTS idx_events_deleted_at ON events (deleted_at)
+        WHERE deleted_at IS NOT NULL;
+END
+$$;
@@ -0,0 +1,16 @@
+-- Optimistic locking: writes through the entities and PATCH requests compare and bump
+-- the version. Existing rows start at 0; the default is needed to add a NOT NULL column
+-- to a filled table.
+DO $$
+DECLARE
+    versioned text;
+BEGIN
+    FOREACH versioned IN ARRAY ARRAY['events', 'users', 'registration_statuses'] LOOP
+        IF to_regclass(versioned) IS NOT NULL THEN
+            EXECUTE format(
+                'ALTER TABLE %I ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0',
+                versioned);
+        END IF;
+    END LOOP;
+END
+$$;
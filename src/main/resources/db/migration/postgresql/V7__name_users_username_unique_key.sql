@@ -0,0 +1,27 @@
+-- The unique key on users.username gets a fixed name instead of the one Hibernate
+-- generated, so a violation on a username change can be told from other failures.
+-- On a fresh database Hibernate creates it with this name.
+DO $$
+DECLARE
+    uk record;
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN;
+    END IF;
+
+    SELECT c.conname INTO uk
+    FROM pg_constraint c
+    JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+    WHERE c.conrelid = 'users'::regclass
+      AND c.contype = 'u'
+      AND array_length(c.conkey, 1) = 1
+      AND a.attname = 'username';
+
+    IF NOT FOUND THEN
+        ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
+    ELSIF uk.conname <> 'uk_users_username' THEN
+        EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO uk_users_username',
+                       uk.conname);
+    END IF;
+END
+$$;
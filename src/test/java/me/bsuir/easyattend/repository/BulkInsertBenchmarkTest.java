@@ -0,0 +1,99 @@
+package me.bsuir.easyattend.repository;
+
+import jakarta.persistence.EntityManager;
+import me.bsuir.easyattend.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares inserting users one statement per row with JDBC batches of the configured
+ * size. Run with {@code ./gradlew benchmark}; it is excluded from the regular test task.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=" + BulkInsertBenchmarkTest.BATCH_SIZE,
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.show-sql=false"
+})
+class BulkInsertBenchmarkTest {
+
+    static final int BATCH_SIZE = 50;
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void batchedInserts_NeedFarFewerStatements_AndAreFaster() {
+        // warm up the JIT and the connection pool
+        insert("warmup", 1, ROWS / 10);
+        insert("warmup-batched", BATCH_SIZE, ROWS / 10);
+
+        Run rowByRow = insert("single", 1, ROWS);
+        Run batched = insert("batched", BATCH_SIZE, ROWS);
+
+        System.out.printf("row by row: %d statements, %.0f rows/s%n",
+                rowByRow.statements(), rowByRow.rowsPerSecond());
+        System.out.printf("batched:    %d statements, %.0f rows/s (%.1fx)%n",
+                batched.statements(), batched.rowsPerSecond(),
+                batched.rowsPerSecond() / rowByRow.rowsPerSecond());
+
+        assertTrue(rowByRow.statements() >= ROWS);
+        // one INSERT batch and one sequence call per 50 rows
+        assertTrue(batched.statements() <= 3 * ROWS / BATCH_SIZE,
+                "expected about one statement per batch, got " + batched.statements());
+        assertTrue(batched.rowsPerSecond() > rowByRow.rowsPerSecond());
+    }
+
+    private Run insert(String prefix, int batchSize, int rows) {
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int from = 0; from < rows; from += CHUNK_SIZE) {
+            List<User> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + CHUNK_SIZE, rows); i++) {
+                chunk.add(user(prefix + i));
+            }
+            userRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        long nanos = System.nanoTime() - start;
+
+        return new Run(statistics.getPrepareStatementCount(), rows * 1e9 / nanos);
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setEmail(username + "@example.com");
+        user.setRegistrationDate(LocalDateTime.now());
+        return user;
+    }
+
+    private record Run(long statements, double rowsPerSecond) {
+    }
+}
@@ -0,0 +1,251 @@
+package me.bsuir.easyattend.repository;
+
+import jakarta.persistence.EntityManager;
+import me.bsuir.easyattend.dto.get.EventAttendeeDto;
+import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.projection.RegistrationStatusProjection;
+import me.bsuir.easyattend.mapper.EventMapper;
+import me.bsuir.easyattend.mapper.EventMapperImpl;
+import me.bsuir.easyattend.mapper.RegistrationStatusMapper;
+import me.bsuir.easyattend.mapper.RegistrationStatusMapperImpl;
+import me.bsuir.easyattend.mapper.RoleMapperImpl;
+import me.bsuir.easyattend.mapper.UserMapperImpl;
+import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatus;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.model.Role;
+import me.bsuir.easyattend.model.RoleType;
+import me.bsuir.easyattend.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards against N+1 lazy loading: every list query of {@link RegistrationStatusRepository}
+ * together with mapping its result to DTOs must run in a fixed number of statements,
+ * however many rows it returns.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({
+        RegistrationStatusMapperImpl.class,
+        EventMapperImpl.class,
+        UserMapperImpl.class,
+        RoleMapperImpl.class
+})
+class RegistrationStatusRepositoryQueryCountTest {
+
+    private static final int ATTENDEES = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private RegistrationStatusRepository registrationStatusRepository;
+
+    @Autowired
+    private RegistrationStatusMapper registrationStatusMapper;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    private Statistics statistics;
+    private Long eventId;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = persist(role(RoleType.ADMIN));
+        Role member = persist(role(RoleType.USER));
+        User organizer = persist(user("organizer", "Organizer", Set.of(admin, member)));
+
+        Event first = persist(event("First", organizer, 1));
+        Event second = persist(event("Second", organizer, 14));
+        for (int i = 0; i < ATTENDEES; i++) {
+            User attendee = persist(user("attendee" + i, "Smith" + i, Set.of(member)));
+            persist(registration(first, attendee, RegistrationStatusType.CONFIRMED));
+            persist(registration(second, attendee, RegistrationStatusType.PENDING));
+            userId = attendee.getId();
+        }
+        eventId = first.getId();
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_LoadsEverythingMappedInOneQuery() {
+        assertMappedInOneQuery(() -> registrationStatusRepository.findAll(), 2 * ATTENDEES);
+    }
+
+    @Test
+    void findByEventId_LoadsEverythingMappedInOneQuery() {
+        assertMappedInOneQuery(
+                () -> registrationStatusRepository.findByEventId(eventId), ATTENDEES);
+    }
+
+    @Test
+    void findByUserId_LoadsEverythingMappedInOneQuery() {
+        assertMappedInOneQuery(() -> registrationStatusRepository.findByUserId(userId), 2);
+    }
+
+    @Test
+    void findByEventIdAndUserLastName_LoadsEverythingMappedInOneQuery() {
+        assertMappedInOneQuery(
+                () -> registrationStatusRepository.findByEventIdAndUserLastName(eventId, "Smith"),
+                ATTENDEES);
+    }
+
+    @Test
+    void streamAll_RunsOneQueryWithoutLoadingEntities() {
+        try (Stream<RegistrationStatusProjection> rows = registrationStatusRepository.streamAll()) {
+            List<RegistrationStatusProjection> statuses = rows.toList();
+
+            assertEquals(2 * ATTENDEES, statuses.size());
+            statuses.forEach(status -> {
+                assertEquals("Organizer", status.event().organizer().lastName());
+                assertTrue(status.user().lastName().startsWith("Smith"));
+            });
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findAttendeePage_RunsOneQueryWithoutLoadingEntities() {
+        List<EventAttendeeDto> attendees = registrationStatusRepository.findAttendeePage(
+                eventId, null, 0L, PageRequest.ofSize(ATTENDEES + 1));
+
+        assertEquals(ATTENDEES, attendees.size());
+        attendees.forEach(attendee -> assertTrue(attendee.getLastName().startsWith("Smith")));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findAttendeePage_SeeksPastUserId_AndFiltersByStatus() {
+        List<EventAttendeeDto> firstPage = registrationStatusRepository.findAttendeePage(
+                eventId, RegistrationStatusType.CONFIRMED, 0L, PageRequest.ofSize(2));
+        List<EventAttendeeDto> secondPage = registrationStatusRepository.findAttendeePage(
+                eventId, RegistrationStatusType.CONFIRMED, firstPage.get(1).getId(),
+                PageRequest.ofSize(2));
+
+        assertEquals(2, firstPage.size());
+        assertTrue(secondPage.get(0).getId() > firstPage.get(1).getId());
+        assertTrue(registrationStatusRepository.findAttendeePage(
+                eventId, RegistrationStatusType.PENDING, 0L, PageRequest.ofSize(2)).isEmpty());
+    }
+
+    @Test
+    void streamAttendees_ReturnsEveryAttendeeInUserIdOrder() {
+        try (Stream<EventAttendeeDto> attendees =
+                     registrationStatusRepository.streamAttendees(eventId, null)) {
+            List<Long> ids = attendees.map(EventAttendeeDto::getId).toList();
+
+            assertEquals(ATTENDEES, ids.size());
+            assertEquals(ids.stream().sorted().toList(), ids);
+        }
+    }
+
+    @Test
+    void findByAttendeeId_LoadsEventsWithOrganizerInOneQuery() {
+        List<EventGetDto> events = eventRepository.findByAttendeeId(userId, null, null).stream()
+                .map(eventMapper::toDto)
+                .toList();
+
+        assertEquals(List.of("First", "Second"), events.stream().map(EventGetDto::getTitle).toList());
+        events.forEach(event -> assertEquals(2, event.getOrganizer().getRoles().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByAttendeeId_FiltersByDateRange() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(1, eventRepository.findByAttendeeId(userId, now, now.plusDays(7)).size());
+        assertEquals(1, eventRepository.findByAttendeeId(userId, now.plusDays(7), null).size());
+        assertEquals(0, eventRepository.findByAttendeeId(userId, null, now).size());
+    }
+
+    @Test
+    void findConfirmedUsersByEventIdAndLastName_RunsOneQuery() {
+        assertEquals(ATTENDEES, registrationStatusRepository
+                .findConfirmedUsersByEventIdAndLastName(eventId, "Smith").size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private void assertMappedInOneQuery(Supplier<List<RegistrationStatus>> query, int rows) {
+        List<RegistrationStatusGetDto> dtos = query.get().stream()
+                .map(registrationStatusMapper::toDto)
+                .toList();
+
+        assertEquals(rows, dtos.size());
+        dtos.forEach(dto -> {
+            assertEquals(2, dto.getEvent().getOrganizer().getRoles().size());
+            assertEquals(1, dto.getUser().getRoles().size());
+        });
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(RoleType name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static User user(String username, String lastName, Set<Role> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setFirstName("Test");
+        user.setLastName(lastName);
+        user.setRegistrationDate(LocalDateTime.now());
+        user.setRoles(roles);
+        return user;
+    }
+
+    private static Event event(String title, User organizer, int daysAhead) {
+        Event event = new Event();
+        event.setTitle(title);
+        event.setEventDate(LocalDateTime.now().plusDays(daysAhead));
+        event.setOrganizer(organizer);
+        return event;
+    }
+
+    private static RegistrationStatus registration(
+            Event event, User user, RegistrationStatusType status) {
+        RegistrationStatus registration = new RegistrationStatus();
+        registration.setEvent(event);
+        registration.setUser(user);
+        registration.setStatus(status);
+        registration.setStatusDate(LocalDateTime.now());
+        return registration;
+    }
+}
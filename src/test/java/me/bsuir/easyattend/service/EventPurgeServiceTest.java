@@ -0,0 +1,210 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.repository.EventRepository;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventPurgeServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private RegistrationStatusRepository registrationStatusRepository;
+
+    @Mock
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    // purges and task expiries are queued here and run by the test, as if the grace period
+    // and the retention had passed
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private EventPurgeService purgeService;
+
+    @BeforeEach
+    void setUp() {
+        purgeService = new EventPurgeService(eventRepository, registrationStatusRepository,
+                registrationCacheInvalidator, Duration.ZERO, BATCH_SIZE, Duration.ZERO,
+                queued::add);
+    }
+
+    @Test
+    void schedule_PurgesRegistrationsInBatchesThenEvent() {
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE)).thenReturn(2, 2, 1);
+
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+        assertEquals("PENDING", task.getStatus());
+        runQueued();
+
+        assertEquals("COMPLETED", task.getStatus());
+        assertEquals(5, task.getPurgedRegistrations());
+        verify(registrationStatusRepository, times(3)).purgeBatch(1L, BATCH_SIZE);
+        verify(eventRepository).purge(1L);
+        verify(registrationCacheInvalidator).eventChanged(1L);
+        assertSame(task, purgeService.getTask(task.getTaskId()));
+    }
+
+    @Test
+    void schedule_RolledBack_LeavesNoTask() {
+        EventPurgeService.PurgeTask task = inTransaction(
+                () -> purgeService.schedule(1L, LocalDateTime.now()), false);
+
+        assertTrue(queued.isEmpty());
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.getTask(task.getTaskId()));
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.cancel(1L));
+    }
+
+    @Test
+    void cancel_BeforePurgeStarts_LeavesRegistrations() {
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+
+        inTransaction(() -> {
+            purgeService.cancel(1L);
+            // the grace period ends while the restore is still in progress
+            runQueued();
+            assertEquals("RESTORING", task.getStatus());
+            return null;
+        }, true);
+
+        assertEquals("CANCELLED", task.getStatus());
+        verifyNoInteractions(registrationStatusRepository);
+        verify(eventRepository, never()).purge(anyLong());
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.cancel(1L));
+    }
+
+    @Test
+    void cancel_RolledBack_PurgeGoesAhead() {
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE)).thenReturn(0);
+
+        inTransaction(() -> {
+            purgeService.cancel(1L);
+            runQueued();
+            return null;
+        }, false);
+        assertEquals("PENDING", task.getStatus());
+        runQueued();
+
+        assertEquals("COMPLETED", task.getStatus());
+        verify(eventRepository).purge(1L);
+    }
+
+    @Test
+    void cancel_WhilePurging_Throws() {
+        purgeService.schedule(1L, LocalDateTime.now());
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE)).thenAnswer(invocation -> {
+            assertThrows(IllegalArgumentException.class, () -> purgeService.cancel(1L));
+            return 0;
+        });
+
+        runQueued();
+
+        verify(eventRepository).purge(1L);
+    }
+
+    @Test
+    void cancel_UnknownEvent_Throws() {
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.cancel(1L));
+    }
+
+    @Test
+    void failedPurge_KeepsEventAndReportsError() {
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE))
+                .thenThrow(new IllegalStateException("lock timeout"));
+
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+        runQueued();
+
+        assertEquals("FAILED", task.getStatus());
+        assertEquals("lock timeout", task.getErrorMessage());
+        verify(eventRepository, never()).purge(anyLong());
+    }
+
+    @Test
+    void failedPurge_CanBeRestored() {
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE))
+                .thenThrow(new IllegalStateException("lock timeout"));
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+        runQueued();
+
+        purgeService.cancel(1L);
+
+        assertEquals("CANCELLED", task.getStatus());
+    }
+
+    @Test
+    void finishedTask_IsForgottenAfterRetention() {
+        when(registrationStatusRepository.purgeBatch(1L, BATCH_SIZE)).thenReturn(0);
+        EventPurgeService.PurgeTask task = purgeService.schedule(1L, LocalDateTime.now());
+
+        runQueued();
+        assertSame(task, purgeService.getTask(task.getTaskId()));
+        runQueued();
+
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.getTask(task.getTaskId()));
+    }
+
+    @Test
+    void resumePendingPurges_SchedulesEventsStillMarkedDeleted() {
+        EventRepository.Deleted deleted = mock(EventRepository.Deleted.class);
+        when(deleted.getId()).thenReturn(7L);
+        when(deleted.getDeletedAt()).thenReturn(LocalDateTime.now().minusDays(1));
+        when(eventRepository.findDeleted()).thenReturn(List.of(deleted));
+        when(registrationStatusRepository.purgeBatch(anyLong(), anyInt())).thenReturn(0);
+
+        purgeService.resumePendingPurges();
+        runQueued();
+
+        verify(eventRepository).purge(7L);
+    }
+
+    @Test
+    void getTask_Unknown_Throws() {
+        assertThrows(ResourceNotFoundException.class, () -> purgeService.getTask("missing"));
+    }
+
+    /**
+     * Runs {@code work} as if in a transaction that then commits or rolls back.
+     */
+    private static <T> T inTransaction(Supplier<T> work, boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            T result = work.get();
+            int status = commit
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK;
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(status));
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void runQueued() {
+        List<Runnable> runnables = new ArrayList<>(queued);
+        queued.clear();
+        runnables.forEach(Runnable::run);
+    }
+}
\ No newline at end of file
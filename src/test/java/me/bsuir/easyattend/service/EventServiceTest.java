@@ -1,30 +1,48 @@
 package me.bsuir.easyattend.service;
 
+import jakarta.persistence.EntityManager;
+import me.bsuir.easyattend.dto.create.AttendeeRemovalDto;
 import me.bsuir.easyattend.dto.create.EventCreateDto;
+import me.bsuir.easyattend.dto.create.EventPatchDto;
+import me.bsuir.easyattend.dto.get.AttendeeRemovalSummaryDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
 import me.bsuir.easyattend.dto.get.EventAttendeeDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.get.UserGetDto;
+import me.bsuir.easyattend.dto.projection.EventProjection;
+import me.bsuir.easyattend.dto.projection.UserProjection;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.EventMapper;
 import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.model.RoleType;
 import me.bsuir.easyattend.model.User;
 import me.bsuir.easyattend.repository.EventRepository;
 import me.bsuir.easyattend.repository.RegistrationStatusRepository;
 import me.bsuir.easyattend.repository.UserRepository;
-import me.bsuir.easyattend.utils.InMemoryCache;
+import me.bsuir.easyattend.utils.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,11 +61,26 @@ class EventServiceTest {
     private RegistrationStatusRepository registrationStatusRepository;
 
     @Mock
-    private InMemoryCache<String, Object> inMemoryCache;
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
 
     @Mock
     private RegistrationStatusService registrationStatusService;
 
+    @Mock
+    private MissingIdCache missingIdCache;
+
+    @Mock
+    private RoleService roleService;
+
+    @Mock
+    private SeatAllocator seatAllocator;
+
+    @Mock
+    private EventPurgeService eventPurgeService;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private EventService eventService;
 
@@ -55,6 +88,7 @@ class EventServiceTest {
     private User testUser;
     private EventCreateDto testCreateDto;
     private EventGetDto testGetDto;
+    private EventProjection testProjection;
 
     @BeforeEach
     void setUp() {
@@ -74,62 +108,140 @@ class EventServiceTest {
         testGetDto = new EventGetDto();
         testGetDto.setId(1L);
         testGetDto.setTitle("Test Event");
+        testGetDto.setOrganizer(new UserGetDto());
+
+        testProjection = projection(1L, LocalDateTime.of(2025, 5, 1, 18, 30));
+    }
+
+    private EventProjection projection(Long id, LocalDateTime eventDate) {
+        return new EventProjection(id, "Test Event", null, eventDate, null, null, 0, 0L,
+                new UserProjection(1L, "organizer", null, null, null, null, 0L));
     }
 
     @Test
     void getEventById_ShouldReturnEvent_WhenExists() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(testEvent));
-        when(eventMapper.toDto(testEvent)).thenReturn(testGetDto);
+        RoleGetDto role = new RoleGetDto();
+        role.setName(RoleType.ADMIN);
+        when(eventRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(eventMapper.toDto(testProjection)).thenReturn(testGetDto);
+        when(roleService.getRolesByUserIds(Set.of(1L))).thenReturn(Map.of(1L, Set.of(role)));
 
         EventGetDto result = eventService.getEventById(1L);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("Test Event", result.getTitle());
-        verify(eventRepository, times(1)).findById(1L);
+        assertEquals(Set.of(role), result.getOrganizer().getRoles());
+        verify(eventRepository, times(1)).findProjectionById(1L);
+        verify(eventRepository, never()).findById(any());
     }
 
     @Test
     void getEventById_ShouldThrowException_WhenNotFound() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.empty());
+        when(eventRepository.findProjectionById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> eventService.getEventById(1L));
+        verify(missingIdCache).markMissing(Event.class, 1L);
     }
 
     @Test
-    void getAttendeesByEventId_ShouldReturnAttendeesList() {
-        User attendee = new User();
-        attendee.setId(2L);
-        attendee.setUsername("attendee");
-        attendee.setFirstName("John");
-        attendee.setLastName("Doe");
+    void getEventById_ShouldSkipRepository_WhenKnownMissing() {
+        when(missingIdCache.isMissing(Event.class, 1L)).thenReturn(true);
 
-        when(registrationStatusRepository.findUsersByEventId(1L))
-                .thenReturn(Collections.singletonList(attendee));
+        assertThrows(ResourceNotFoundException.class, () -> eventService.getEventById(1L));
+        verifyNoInteractions(eventRepository);
+    }
 
-        List<EventAttendeeDto> result = eventService.getAttendeesByEventId(1L);
+    @Test
+    void getAttendeesByEventId_ShouldReturnPageWithCursor_WhenMoreAttendeesExist() {
+        EventAttendeeDto attendee = new EventAttendeeDto(2L, "attendee", "John", "Doe");
+        EventAttendeeDto next = new EventAttendeeDto(3L, "next", "Jane", "Doe");
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("John", result.get(0).getFirstName());
-        assertEquals("Doe", result.get(0).getLastName());
+        when(eventRepository.existsById(1L)).thenReturn(true);
+        when(registrationStatusRepository.findAttendeePage(
+                1L, RegistrationStatusType.CONFIRMED, 0L, PageRequest.ofSize(2)))
+                .thenReturn(List.of(attendee, next));
+
+        CursorPage<EventAttendeeDto> result = eventService.getAttendeesByEventId(
+                1L, RegistrationStatusType.CONFIRMED, null, 1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals("John", result.getItems().get(0).getFirstName());
+        assertEquals(PageCursor.encode(2L), result.getNextCursor());
     }
 
     @Test
-    void getAllEvents_ShouldReturnEventsList() {
-        when(eventRepository.findAll()).thenReturn(Collections.singletonList(testEvent));
-        when(eventMapper.toDto(testEvent)).thenReturn(testGetDto);
+    void getAttendeesByEventId_ShouldSeekPastCursor() {
+        when(eventRepository.existsById(1L)).thenReturn(true);
+        when(registrationStatusRepository.findAttendeePage(1L, null, 2L, PageRequest.ofSize(11)))
+                .thenReturn(Collections.emptyList());
 
-        List<EventGetDto> result = eventService.getAllEvents();
+        CursorPage<EventAttendeeDto> result =
+                eventService.getAttendeesByEventId(1L, null, PageCursor.encode(2L), 10);
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Test Event", result.get(0).getTitle());
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAttendeesByEventId_ShouldThrowException_WhenEventNotFound() {
+        when(eventRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> eventService.getAttendeesByEventId(1L, null, null, 10));
+        verify(missingIdCache).markMissing(Event.class, 1L);
+        verifyNoInteractions(registrationStatusRepository);
+    }
+
+    @Test
+    void getAttendeesByEventId_ShouldSkipRepository_WhenKnownMissing() {
+        when(missingIdCache.isMissing(Event.class, 1L)).thenReturn(true);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> eventService.getAttendeesByEventId(1L, null, null, 10));
+        verifyNoInteractions(eventRepository, registrationStatusRepository);
+    }
+
+    @Test
+    void getEvents_ShouldReturnLastPage_WithoutCursor() {
+        when(eventRepository.findFirstPage(PageRequest.ofSize(11)))
+                .thenReturn(Collections.singletonList(testProjection));
+        when(eventMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        CursorPage<EventGetDto> result = eventService.getEvents(null, 10);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals("Test Event", result.getItems().get(0).getTitle());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getEvents_ShouldSeekPastCursor_OfPreviousPage() {
+        EventProjection next = projection(2L, testProjection.eventDate().plusDays(1));
+        when(eventRepository.findFirstPage(PageRequest.ofSize(2)))
+                .thenReturn(List.of(testProjection, next));
+        when(eventRepository.findPageAfter(
+                testProjection.eventDate(), testProjection.id(), PageRequest.ofSize(2)))
+                .thenReturn(List.of(next));
+        when(eventMapper.toDto(any(EventProjection.class))).thenReturn(testGetDto);
+
+        CursorPage<EventGetDto> first = eventService.getEvents(null, 1);
+        CursorPage<EventGetDto> second = eventService.getEvents(first.getNextCursor(), 1);
+
+        assertEquals(1, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getEvents_ShouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> eventService.getEvents("bogus", 10));
+        verifyNoInteractions(eventRepository);
     }
 
     @Test
     void createEvent_ShouldReturnCreatedEvent() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(eventMapper.toEntity(testCreateDto)).thenReturn(testEvent);
         when(eventRepository.save(testEvent)).thenReturn(testEvent);
         when(eventMapper.toDto(testEvent)).thenReturn(testGetDto);
@@ -143,15 +255,16 @@ class EventServiceTest {
 
     @Test
     void createEvent_ShouldThrowException_WhenOrganizerNotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(eventMapper.toEntity(testCreateDto))
+                .thenThrow(new ResourceNotFoundException("User not found with id 1"));
 
         assertThrows(ResourceNotFoundException.class, () -> eventService.createEvent(testCreateDto));
+        verify(eventRepository, never()).save(any());
     }
 
     @Test
     void updateEvent_ShouldReturnUpdatedEvent() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(testEvent));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
         when(eventRepository.save(testEvent)).thenReturn(testEvent);
         when(eventMapper.toDto(testEvent)).thenReturn(testGetDto);
 
@@ -160,11 +273,84 @@ class EventServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(eventRepository, times(1)).save(testEvent);
+        // the organizer did not change, so it is not looked up again
+        verifyNoInteractions(userRepository);
+        // the seat count is read under the row lock
+        verify(eventRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateEvent_NewOrganizer_IsResolved() {
+        User newOrganizer = new User();
+        newOrganizer.setId(2L);
+        testCreateDto.setOrganizerId(2L);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(newOrganizer));
+        when(eventRepository.save(testEvent)).thenReturn(testEvent);
+
+        eventService.updateEvent(1L, testCreateDto);
+
+        assertSame(newOrganizer, testEvent.getOrganizer());
+    }
+
+    @Test
+    void updateEvent_RaisedCapacity_PromotesWaitingList() {
+        testEvent.setCapacity(10);
+        testEvent.setConfirmedCount(10);
+        testCreateDto.setCapacity(15);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+        doAnswer(invocation -> {
+            testEvent.setCapacity(15);
+            return null;
+        }).when(eventMapper).updateEventFromDto(testCreateDto, testEvent);
+        when(eventRepository.save(testEvent)).thenReturn(testEvent);
+
+        eventService.updateEvent(1L, testCreateDto);
+
+        verify(seatAllocator).seatsAdded(1L, 5);
+    }
+
+    @Test
+    void updateEvent_CapacityRemoved_ConfirmsWholeWaitingList() {
+        testEvent.setCapacity(10);
+        testEvent.setConfirmedCount(10);
+        testCreateDto.setCapacity(null);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+        when(eventRepository.save(testEvent)).thenReturn(testEvent);
+
+        eventService.updateEvent(1L, testCreateDto);
+
+        assertNull(testEvent.getCapacity());
+        verify(seatAllocator).seatsAdded(1L, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void updateEvent_StillUnlimited_PromotesNobody() {
+        testEvent.setCapacity(null);
+        testCreateDto.setCapacity(null);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+        when(eventRepository.save(testEvent)).thenReturn(testEvent);
+
+        eventService.updateEvent(1L, testCreateDto);
+
+        verifyNoInteractions(seatAllocator);
+    }
+
+    @Test
+    void updateEvent_CapacityBelowConfirmed_Throws() {
+        testEvent.setCapacity(10);
+        testEvent.setConfirmedCount(8);
+        testCreateDto.setCapacity(5);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> eventService.updateEvent(1L, testCreateDto));
+        verify(eventRepository, never()).save(any());
     }
 
     @Test
     void updateEvent_ShouldThrowException_WhenEventNotFound() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.empty());
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> eventService.updateEvent(1L, testCreateDto));
@@ -172,37 +358,277 @@ class EventServiceTest {
 
     @Test
     void updateEvent_ShouldThrowException_WhenOrganizerNotFound() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(testEvent));
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        testCreateDto.setOrganizerId(2L);
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testEvent));
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> eventService.updateEvent(1L, testCreateDto));
     }
 
     @Test
-    void deleteEvent_ShouldDeleteEvent() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(testEvent));
+    void patchEvent_UpdatesWithoutLoadingAndReturnsFreshEvent() {
+        EventPatchDto patch = eventPatch(3L);
+        patch.setTitle("Renamed");
+        when(eventRepository.patch(1L, 3L, "Renamed", null, null, null, null))
+                .thenReturn(Optional.of(patched(null, null, 0)));
+        when(eventRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(eventMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        assertSame(testGetDto, eventService.patchEvent(1L, patch));
+
+        verify(eventRepository, never()).findById(any());
+        verify(eventRepository, never()).save(any());
+        verifyNoInteractions(seatAllocator);
+    }
+
+    @Test
+    void patchEvent_RaisedCapacity_PromotesWaitingList() {
+        EventPatchDto patch = eventPatch(3L);
+        patch.setCapacity(15);
+        when(eventRepository.patch(1L, 3L, null, null, null, null, 15))
+                .thenReturn(Optional.of(patched(10, 15, 10)));
+        when(eventRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(eventMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        eventService.patchEvent(1L, patch);
+
+        verify(seatAllocator).seatsAdded(1L, 5);
+    }
 
-        eventService.deleteEvent(1L);
+    @Test
+    void patchEvent_StaleVersion_Conflict() {
+        EventPatchDto patch = eventPatch(2L);
+        patch.setTitle("Renamed");
+        when(eventRepository.patch(1L, 2L, "Renamed", null, null, null, null))
+                .thenReturn(Optional.empty());
+        when(eventRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> eventService.patchEvent(1L, patch));
+    }
 
-        verify(eventRepository, times(1)).delete(testEvent);
-        verify(inMemoryCache, times(2)).evictByPattern(anyString());
+    @Test
+    void patchEvent_CapacityBelowConfirmed_Throws() {
+        EventPatchDto patch = eventPatch(3L);
+        patch.setCapacity(5);
+        when(eventRepository.patch(1L, 3L, null, null, null, null, 5))
+                .thenReturn(Optional.empty());
+        when(eventRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(IllegalArgumentException.class, () -> eventService.patchEvent(1L, patch));
+    }
+
+    @Test
+    void patchEvent_NotFound() {
+        EventPatchDto patch = eventPatch(3L);
+        patch.setTitle("Renamed");
+        when(eventRepository.patch(1L, 3L, "Renamed", null, null, null, null))
+                .thenReturn(Optional.empty());
+        when(eventRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> eventService.patchEvent(1L, patch));
+    }
+
+    private static EventPatchDto eventPatch(long version) {
+        EventPatchDto patch = new EventPatchDto();
+        patch.setVersion(version);
+        return patch;
+    }
+
+    private static EventRepository.Patched patched(
+            Integer previousCapacity,
+            Integer capacity,
+            int confirmedCount
+    ) {
+        return new EventRepository.Patched() {
+            @Override
+            public Integer getPreviousCapacity() {
+                return previousCapacity;
+            }
+
+            @Override
+            public Integer getCapacity() {
+                return capacity;
+            }
+
+            @Override
+            public int getConfirmedCount() {
+                return confirmedCount;
+            }
+        };
+    }
+
+    @Test
+    void deleteEvent_ShouldMarkDeletedAndSchedulePurge() {
+        EventPurgeService.PurgeTask task =
+                new EventPurgeService.PurgeTask("task", 1L, LocalDateTime.now());
+        when(eventRepository.markDeleted(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(eventPurgeService.schedule(eq(1L), any(LocalDateTime.class))).thenReturn(task);
+
+        assertSame(task, eventService.deleteEvent(1L));
+
+        verify(eventRepository, never()).delete(any());
+        verify(registrationCacheInvalidator).eventChanged(1L);
     }
 
     @Test
     void deleteEvent_ShouldThrowException_WhenEventNotFound() {
-        when(eventRepository.findById(1L)).thenReturn(Optional.empty());
+        when(eventRepository.markDeleted(eq(1L), any(LocalDateTime.class))).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> eventService.deleteEvent(1L));
+        verifyNoInteractions(eventPurgeService);
+    }
+
+    @Test
+    void restoreEvent_CancelsPurgeAndForgetsMissingId() {
+        when(eventRepository.restore(1L)).thenReturn(1);
+
+        eventService.restoreEvent(1L);
+
+        verify(eventPurgeService).cancel(1L);
+        verify(eventRepository).restore(1L);
+        verify(registrationCacheInvalidator).eventChanged(1L);
+        verify(missingIdCache).created(Event.class, 1L);
+    }
+
+    @Test
+    void restoreEvent_NothingRestored_NotFound() {
+        when(eventRepository.restore(1L)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> eventService.restoreEvent(1L));
+        verifyNoInteractions(registrationCacheInvalidator, missingIdCache);
+    }
+
+    @Test
+    void restoreEvent_PurgeStarted_KeepsEventDeleted() {
+        doThrow(new IllegalArgumentException("already being purged"))
+                .when(eventPurgeService).cancel(1L);
+
+        assertThrows(IllegalArgumentException.class, () -> eventService.restoreEvent(1L));
+        verify(eventRepository, never()).restore(any());
     }
 
     @Test
     void removeAttendeeFromEvent_ShouldDeleteRegistration() {
-        doNothing().when(registrationStatusRepository).deleteByEventIdAndUserId(1L, 2L);
+        when(registrationStatusRepository.deleteAttendees(1L, List.of(2L), null))
+                .thenReturn(removal(1, 1));
 
         eventService.removeAttendeeFromEvent(1L, 2L);
 
-        verify(registrationStatusRepository, times(1))
-                .deleteByEventIdAndUserId(1L, 2L);
+        InOrder inOrder = inOrder(entityManager, registrationStatusRepository);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(registrationStatusRepository).deleteAttendees(1L, List.of(2L), null);
+        inOrder.verify(entityManager).clear();
+        verify(seatAllocator).release(1L, 1);
+        verify(registrationCacheInvalidator).registrationChanged(1L, null);
+        // the whole event is evicted, so the user is not read for its last name
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void removeAttendeeFromEvent_NotRegistered_NotFound() {
+        when(registrationStatusRepository.deleteAttendees(1L, List.of(2L), null))
+                .thenReturn(removal(0, 0));
+        when(eventRepository.existsById(1L)).thenReturn(true);
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> eventService.removeAttendeeFromEvent(1L, 2L));
+
+        assertEquals("Registration of user 2 to event 1 not found", e.getMessage());
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void removeAttendeeFromEvent_UnknownEvent_NotFound() {
+        when(registrationStatusRepository.deleteAttendees(1L, List.of(2L), null))
+                .thenReturn(removal(0, 0));
+        when(eventRepository.existsById(1L)).thenReturn(false);
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> eventService.removeAttendeeFromEvent(1L, 2L));
+
+        assertEquals("Event not found with id 1", e.getMessage());
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void removeAttendees_ByStatus_DeletesOnceAndReleasesConfirmedSeats() {
+        AttendeeRemovalDto request = new AttendeeRemovalDto();
+        request.setStatus("CONFIRMED");
+        when(registrationStatusRepository.deleteAttendeesByStatus(1L, "CONFIRMED"))
+                .thenReturn(removal(3, 3));
+
+        AttendeeRemovalSummaryDto result = eventService.removeAttendees(1L, request);
+
+        assertEquals(3, result.getRemoved());
+        verify(seatAllocator).release(1L, 3);
+        verify(registrationCacheInvalidator, times(1)).registrationChanged(1L, null);
+        verify(registrationStatusRepository, never()).deleteAttendees(any(), any(), any());
+    }
+
+    @Test
+    void removeAttendees_ByUsersAndStatus_PassesBothFilters() {
+        AttendeeRemovalDto request = new AttendeeRemovalDto();
+        request.setUserIds(List.of(2L, 3L));
+        request.setStatus("CANCELLED");
+        when(registrationStatusRepository.deleteAttendees(1L, List.of(2L, 3L), "CANCELLED"))
+                .thenReturn(removal(2, 0));
+
+        AttendeeRemovalSummaryDto result = eventService.removeAttendees(1L, request);
+
+        assertEquals(2, result.getRemoved());
+        verify(seatAllocator).release(1L, 0);
+        verify(registrationCacheInvalidator).registrationChanged(1L, null);
+    }
+
+    @Test
+    void removeAttendees_NothingRemoved_SkipsInvalidation() {
+        AttendeeRemovalDto request = new AttendeeRemovalDto();
+        request.setStatus("CANCELLED");
+        when(registrationStatusRepository.deleteAttendeesByStatus(1L, "CANCELLED"))
+                .thenReturn(removal(0, 0));
+        when(eventRepository.existsById(1L)).thenReturn(true);
+
+        AttendeeRemovalSummaryDto result = eventService.removeAttendees(1L, request);
+
+        assertEquals(0, result.getRemoved());
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void removeAttendees_UnknownEvent_Throws() {
+        AttendeeRemovalDto request = new AttendeeRemovalDto();
+        request.setStatus("CANCELLED");
+        when(registrationStatusRepository.deleteAttendeesByStatus(99L, "CANCELLED"))
+                .thenReturn(removal(0, 0));
+        when(eventRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> eventService.removeAttendees(99L, request));
+    }
+
+    @Test
+    void removeAttendees_UnknownStatus_ThrowsBeforeDeleting() {
+        AttendeeRemovalDto request = new AttendeeRemovalDto();
+        request.setStatus("GONE");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> eventService.removeAttendees(1L, request));
+        verifyNoInteractions(registrationStatusRepository);
+    }
+
+    private static RegistrationStatusRepository.Removal removal(long removed, long confirmed) {
+        return new RegistrationStatusRepository.Removal() {
+            @Override
+            public long getRemoved() {
+                return removed;
+            }
+
+            @Override
+            public long getConfirmed() {
+                return confirmed;
+            }
+        };
     }
 }
\ No newline at end of file
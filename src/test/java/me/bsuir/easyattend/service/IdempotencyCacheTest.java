@@ -0,0 +1,51 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
+import me.bsuir.easyattend.utils.IdempotentRegistration;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private IdempotencyCache idempotencyCache;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryCache<String, IdempotentRegistration> cache =
+                new InMemoryCache<>("idempotencyKeys", 60_000, 100);
+        idempotencyCache = new IdempotencyCache(cache);
+    }
+
+    @Test
+    void find_UnknownKey_ReturnsNull() {
+        assertNull(idempotencyCache.find("key-1", request("CONFIRMED")));
+    }
+
+    @Test
+    void find_SameRequest_ReturnsRememberedResponse() {
+        RegistrationStatusRefDto response = new RegistrationStatusRefDto();
+        idempotencyCache.remember("key-1", request("CONFIRMED"), response);
+
+        assertSame(response, idempotencyCache.find("key-1", request("CONFIRMED")));
+    }
+
+    @Test
+    void find_KeyReusedForOtherRequest_Throws() {
+        idempotencyCache.remember("key-1", request("CONFIRMED"), new RegistrationStatusRefDto());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyCache.find("key-1", request("CANCELLED")));
+    }
+
+    private static RegistrationStatusCreateDto request(String status) {
+        RegistrationStatusCreateDto request = new RegistrationStatusCreateDto();
+        request.setEventId(1L);
+        request.setUserId(2L);
+        request.setStatus(status);
+        return request;
+    }
+}
@@ -0,0 +1,52 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.User;
+import me.bsuir.easyattend.utils.EntityIdKey;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissingIdCacheTest {
+
+    private MissingIdCache missingIdCache;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryCache<EntityIdKey, Boolean> cache = new InMemoryCache<>("notFound", 60_000, 100);
+        missingIdCache = new MissingIdCache(cache);
+    }
+
+    @Test
+    void markMissing_IsScopedToEntityType() {
+        missingIdCache.markMissing(Event.class, 1L);
+
+        assertTrue(missingIdCache.isMissing(Event.class, 1L));
+        assertFalse(missingIdCache.isMissing(User.class, 1L));
+        assertFalse(missingIdCache.isMissing(Event.class, 2L));
+    }
+
+    @Test
+    void created_ClearsMissingId() {
+        missingIdCache.markMissing(Event.class, 1L);
+
+        missingIdCache.created(Event.class, 1L);
+
+        assertFalse(missingIdCache.isMissing(Event.class, 1L));
+    }
+
+    @Test
+    void createdInBulk_ClearsMissingIdsOfThatTypeOnly() {
+        missingIdCache.markMissing(Event.class, 1L);
+        missingIdCache.markMissing(Event.class, 2L);
+        missingIdCache.markMissing(User.class, 1L);
+
+        missingIdCache.createdInBulk(Event.class);
+
+        assertFalse(missingIdCache.isMissing(Event.class, 1L));
+        assertFalse(missingIdCache.isMissing(Event.class, 2L));
+        assertTrue(missingIdCache.isMissing(User.class, 1L));
+    }
+}
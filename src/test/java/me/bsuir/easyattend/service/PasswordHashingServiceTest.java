@@ -0,0 +1,170 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private final Set<String> hashingThreads = ConcurrentHashMap.newKeySet();
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private PasswordHashingService hashingService = service(2, 16, 4, 12, Duration.ofMillis(100));
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hashingService.shutdown();
+    }
+
+    @Test
+    void hashAll_KeepsRequestOrder() {
+        List<String> passwords = IntStream.range(0, 500).mapToObj(i -> "password" + i).toList();
+
+        List<String> hashes = hashingService.hashAll(passwords);
+
+        assertEquals(500, hashes.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            assertTrue(hashes.get(i).endsWith(":" + passwords.get(i)), hashes.get(i));
+        }
+    }
+
+    @Test
+    void hashAll_RunsOnlyOnHashingPool() {
+        hashingService.hashAll(IntStream.range(0, 1000).mapToObj(i -> "p" + i).toList());
+
+        assertFalse(hashingThreads.isEmpty());
+        assertTrue(hashingThreads.stream().allMatch(name -> name.startsWith("password-hash-")),
+                hashingThreads::toString);
+    }
+
+    @Test
+    void hash_QueueFull_IsRejected() throws Exception {
+        hashingService = service(1, 1, 4, 12, Duration.ofMillis(100));
+        release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashingService.hash("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashingService.hash("b"));
+        while (hashingService.stats().active() + hashingService.stats().queued() < 2) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(ServiceOverloadedException.class, () -> hashingService.hash("c"));
+
+        release.countDown();
+        assertEquals("hash10:a", running.get());
+        assertEquals("hash10:b", queued.get());
+        PasswordHashingService.Stats stats = hashingService.stats();
+        assertEquals(2, stats.hashed());
+        assertEquals(1, stats.rejected());
+        assertEquals(1, stats.queueCapacity());
+    }
+
+    @Test
+    void hashAll_FailedHash_IsRethrownUnwrapped() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> hashingService.hashAll(List.of("fail", "b", "c")));
+
+        assertEquals("cannot hash fail", e.getMessage());
+    }
+
+    @Test
+    void hashAll_QueueFull_IsRejected() throws Exception {
+        hashingService = service(1, 1, 4, 12, Duration.ofMillis(100));
+        release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashingService.hash("a"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashingService.hash("b"));
+        while (hashingService.stats().active() + hashingService.stats().queued() < 2) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(ServiceOverloadedException.class,
+                () -> hashingService.hashAll(List.of("c", "d")));
+
+        release.countDown();
+        assertEquals("hash10:a", running.get());
+        assertEquals("hash10:b", queued.get());
+    }
+
+    @Test
+    void hash_FasterThanTarget_RaisesCostUpToMax() {
+        hashingService = service(2, 16, 4, 12, Duration.ofHours(1));
+
+        assertEquals("hash10:p", hashingService.hash("p"));
+        for (int i = 1; i < 5 * PasswordHashingService.ADAPT_WINDOW; i++) {
+            hashingService.hash("p");
+        }
+
+        assertEquals(12, hashingService.stats().cost());
+        assertEquals("hash12:p", hashingService.hash("p"));
+    }
+
+    @Test
+    void hash_SlowerThanTarget_LowersCostDownToMin() {
+        hashingService = service(2, 16, 8, 12, Duration.ofNanos(1));
+
+        for (int i = 0; i < 5 * PasswordHashingService.ADAPT_WINDOW; i++) {
+            hashingService.hash("p");
+        }
+
+        assertEquals(8, hashingService.stats().cost());
+    }
+
+    @Test
+    void stats_CountHashes() {
+        hashingService.hashAll(List.of("a", "b", "c"));
+
+        PasswordHashingService.Stats stats = hashingService.stats();
+        assertEquals(2, stats.threads());
+        assertEquals(16, stats.queueCapacity());
+        assertEquals(3, stats.hashed());
+        assertEquals(0, stats.rejected());
+        assertTrue(stats.averageHashMillis() >= 0);
+    }
+
+    @Test
+    void constructor_RejectsInvertedCostBounds() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service(1, 1, 12, 10, Duration.ofMillis(100)));
+    }
+
+    private PasswordHashingService service(
+            int threads, int queueCapacity, int minCost, int maxCost, Duration target) {
+        return new PasswordHashingService(
+                this::encoder, threads, queueCapacity, minCost, maxCost, target);
+    }
+
+    private PasswordEncoder encoder(int cost) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashingThreads.add(Thread.currentThread().getName());
+                if ("fail".contentEquals(rawPassword)) {
+                    throw new IllegalStateException("cannot hash fail");
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash" + cost + ":" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+}
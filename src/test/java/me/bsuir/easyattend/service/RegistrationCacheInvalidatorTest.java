@@ -0,0 +1,67 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.utils.EventLastNameKey;
+import me.bsuir.easyattend.utils.InMemoryCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationCacheInvalidatorTest {
+
+    private InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>> filteredCache;
+    private InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache;
+    private RegistrationCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        filteredCache = new InMemoryCache<>("filtered", 60_000, 100);
+        confirmedUsersCache = new InMemoryCache<>("confirmed", 60_000, 100);
+        invalidator = new RegistrationCacheInvalidator(filteredCache, confirmedUsersCache);
+    }
+
+    @Test
+    void registrationChanged_EvictsOnlyFiltersMatchingLastName() {
+        putConfirmed(1L, "Smi");
+        putConfirmed(1L, "Doe");
+        putConfirmed(1L, "S_ith");
+        putConfirmed(2L, "Smi");
+
+        invalidator.registrationChanged(1L, "Smith");
+
+        assertNull(confirmedUsersCache.get(new EventLastNameKey(1L, "Smi")));
+        assertNull(confirmedUsersCache.get(new EventLastNameKey(1L, "S_ith")));
+        assertNotNull(confirmedUsersCache.get(new EventLastNameKey(1L, "Doe")));
+        assertNotNull(confirmedUsersCache.get(new EventLastNameKey(2L, "Smi")));
+    }
+
+    @Test
+    void registrationChanged_WithoutLastName_EvictsWholeEvent() {
+        putConfirmed(1L, "Doe");
+        filteredCache.put(new EventLastNameKey(1L, "Doe"), List.of(), 1L);
+
+        invalidator.registrationChanged(1L, null);
+
+        assertNull(confirmedUsersCache.get(new EventLastNameKey(1L, "Doe")));
+        assertNull(filteredCache.get(new EventLastNameKey(1L, "Doe")));
+    }
+
+    @Test
+    void userChanged_ClearsBothRegions() {
+        putConfirmed(1L, "Doe");
+        filteredCache.put(new EventLastNameKey(2L, "Doe"), List.of(), 2L);
+
+        invalidator.userChanged();
+
+        assertNull(confirmedUsersCache.get(new EventLastNameKey(1L, "Doe")));
+        assertNull(filteredCache.get(new EventLastNameKey(2L, "Doe")));
+    }
+
+    private void putConfirmed(Long eventId, String lastName) {
+        confirmedUsersCache.put(new EventLastNameKey(eventId, lastName), List.of(), eventId);
+    }
+}
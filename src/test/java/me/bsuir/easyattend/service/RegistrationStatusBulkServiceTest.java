@@ -0,0 +1,201 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.dto.create.BulkRegistrationCreateDto;
+import me.bsuir.easyattend.dto.get.BulkRegistrationSummaryDto;
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.model.RegistrationStatus;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import me.bsuir.easyattend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationStatusBulkServiceTest {
+
+    @Mock
+    private RegistrationStatusRepository registrationStatusRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    @Mock
+    private MissingIdCache missingIdCache;
+
+    @Mock
+    private SeatAllocator seatAllocator;
+
+    @InjectMocks
+    private RegistrationStatusBulkService bulkService;
+
+    @Test
+    void registerAll_SkipsDuplicatesAndUnknownUsers_WithSetBasedLookups() {
+        BulkRegistrationCreateDto request = request(
+                registration(1L, "CONFIRMED"),
+                registration(2L, "PENDING"),
+                registration(1L, "CANCELLED"),
+                registration(3L, "CONFIRMED"),
+                registration(4L, "CONFIRMED"));
+        grantAsRequested();
+        when(userRepository.findExistingIds(Set.of(1L, 2L, 3L, 4L))).thenReturn(List.of(1L, 2L, 3L));
+        when(registrationStatusRepository.findRegisteredUserIds(7L, Set.of(1L, 2L, 3L, 4L)))
+                .thenReturn(List.of(3L));
+        List<Inserted> inserted = captureInserted(Set.of());
+
+        BulkRegistrationSummaryDto summary = bulkService.registerAll(request);
+
+        assertEquals(5, summary.getRequested());
+        assertEquals(2, summary.getCreated());
+        assertEquals(2, summary.getDuplicates());
+        assertEquals(List.of(4L), summary.getUnknownUserIds());
+        assertEquals(List.of(new Inserted(1L, "CONFIRMED"), new Inserted(2L, "PENDING")), inserted);
+        verify(userRepository, never()).findById(any());
+        verify(seatAllocator).release(7L, 0);
+        verify(registrationCacheInvalidator).registrationChanged(7L, null);
+        verify(missingIdCache).createdInBulk(RegistrationStatus.class);
+    }
+
+    @Test
+    void registerAll_InsertsOneStatementPerChunk() {
+        int rows = RegistrationStatusBulkService.CHUNK_SIZE * 2 + 1;
+        List<Long> userIds = LongStream.rangeClosed(1, rows).boxed().toList();
+        BulkRegistrationCreateDto request = request(userIds.stream()
+                .map(id -> registration(id, "CONFIRMED"))
+                .toArray(BulkRegistrationCreateDto.Registration[]::new));
+        grantAsRequested();
+        when(userRepository.findExistingIds(any())).thenReturn(userIds);
+        when(registrationStatusRepository.findRegisteredUserIds(eq(7L), any())).thenReturn(List.of());
+        captureInserted(Set.of());
+
+        BulkRegistrationSummaryDto summary = bulkService.registerAll(request);
+
+        assertEquals(rows, summary.getCreated());
+        verify(registrationStatusRepository, times(3)).insertAll(eq(7L), any(), any(), any());
+    }
+
+    @Test
+    void registerAll_RegisteredConcurrently_CountsDuplicateAndHandsSeatOn() {
+        BulkRegistrationCreateDto request = request(
+                registration(1L, "CONFIRMED"),
+                registration(2L, "CONFIRMED"));
+        grantAsRequested();
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(1L, 2L));
+        when(registrationStatusRepository.findRegisteredUserIds(eq(7L), any())).thenReturn(List.of());
+        // user 2 registers on their own after the check, before the insert
+        captureInserted(Set.of(2L));
+
+        BulkRegistrationSummaryDto summary = bulkService.registerAll(request);
+
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getDuplicates());
+        verify(seatAllocator).release(7L, 1);
+    }
+
+    @Test
+    void registerAll_EventFull_StoresGrantedStatuses() {
+        BulkRegistrationCreateDto request = request(
+                registration(1L, "CONFIRMED"),
+                registration(2L, "CONFIRMED"),
+                registration(3L, "PENDING"));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(1L, 2L, 3L));
+        when(registrationStatusRepository.findRegisteredUserIds(eq(7L), any())).thenReturn(List.of());
+        when(seatAllocator.claimAll(7L, List.of(
+                RegistrationStatusType.CONFIRMED,
+                RegistrationStatusType.CONFIRMED,
+                RegistrationStatusType.PENDING)))
+                .thenReturn(List.of(
+                        RegistrationStatusType.CONFIRMED,
+                        RegistrationStatusType.WAITING_LIST,
+                        RegistrationStatusType.PENDING));
+        List<Inserted> inserted = captureInserted(Set.of());
+
+        bulkService.registerAll(request);
+
+        assertEquals(List.of("CONFIRMED", "WAITING_LIST", "PENDING"),
+                inserted.stream().map(Inserted::status).toList());
+        verify(seatAllocator).release(7L, 0);
+    }
+
+    @Test
+    void registerAll_UnknownEvent_WritesNothing() {
+        BulkRegistrationCreateDto request = request(registration(1L, "CONFIRMED"));
+        when(seatAllocator.claimAll(eq(7L), any()))
+                .thenThrow(new ResourceNotFoundException("Event not found with id 7"));
+
+        assertThrows(ResourceNotFoundException.class, () -> bulkService.registerAll(request));
+        verify(registrationStatusRepository, never()).insertAll(any(), any(), any(), any());
+        verifyNoInteractions(registrationCacheInvalidator);
+    }
+
+    @Test
+    void registerAll_InvalidStatus_WritesNothing() {
+        BulkRegistrationCreateDto request = request(
+                registration(1L, "CONFIRMED"),
+                registration(2L, "MAYBE"));
+
+        assertThrows(IllegalArgumentException.class, () -> bulkService.registerAll(request));
+        verifyNoInteractions(registrationStatusRepository, seatAllocator);
+    }
+
+    private void grantAsRequested() {
+        when(seatAllocator.claimAll(eq(7L), any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    /**
+     * Records the rows passed to the insert; those of {@code conflicting} users are not
+     * returned, as if they were registered in the meantime.
+     */
+    private List<Inserted> captureInserted(Set<Long> conflicting) {
+        List<Inserted> inserted = new ArrayList<>();
+        when(registrationStatusRepository.insertAll(eq(7L), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Long[] userIds = invocation.getArgument(1);
+                    String[] statuses = invocation.getArgument(2);
+                    List<String> returned = new ArrayList<>();
+                    for (int i = 0; i < userIds.length; i++) {
+                        if (!conflicting.contains(userIds[i])) {
+                            inserted.add(new Inserted(userIds[i], statuses[i]));
+                            returned.add(statuses[i]);
+                        }
+                    }
+                    return returned;
+                });
+        return inserted;
+    }
+
+    private record Inserted(Long userId, String status) {
+    }
+
+    private static BulkRegistrationCreateDto request(
+            BulkRegistrationCreateDto.Registration... registrations
+    ) {
+        BulkRegistrationCreateDto request = new BulkRegistrationCreateDto();
+        request.setEventId(7L);
+        request.setRegistrations(List.of(registrations));
+        return request;
+    }
+
+    private static BulkRegistrationCreateDto.Registration registration(Long userId, String status) {
+        BulkRegistrationCreateDto.Registration registration =
+                new BulkRegistrationCreateDto.Registration();
+        registration.setUserId(userId);
+        registration.setStatus(status);
+        return registration;
+    }
+}
@@ -0,0 +1,135 @@
+package me.bsuir.easyattend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import me.bsuir.easyattend.mapper.EventMapperImpl;
+import me.bsuir.easyattend.mapper.RegistrationStatusMapperImpl;
+import me.bsuir.easyattend.mapper.RoleMapperImpl;
+import me.bsuir.easyattend.mapper.UserMapperImpl;
+import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatus;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.model.Role;
+import me.bsuir.easyattend.model.RoleType;
+import me.bsuir.easyattend.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the export against a real persistence context, over more rows than one chunk and
+ * with users holding several roles, where a cursor over managed entities breaks down.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({
+        RegistrationStatusExportService.class,
+        RoleService.class,
+        RegistrationStatusMapperImpl.class,
+        EventMapperImpl.class,
+        UserMapperImpl.class,
+        RoleMapperImpl.class,
+        JacksonAutoConfiguration.class
+})
+class RegistrationStatusExportServiceJpaTest {
+
+    private static final int ROWS = RegistrationStatusExportService.CHUNK_SIZE + 100;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private RegistrationStatusExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportAll_MoreRowsThanOneChunk_WritesEveryRoleOfEveryUser() throws Exception {
+        Role admin = persist(role(RoleType.ADMIN));
+        Role member = persist(role(RoleType.USER));
+        User organizer = persist(user("organizer", Set.of(admin, member)));
+        Event event = persist(event(organizer));
+        for (int i = 0; i < ROWS; i++) {
+            // every other attendee holds both roles
+            User attendee = persist(user("attendee" + i,
+                    i % 2 == 0 ? Set.of(admin, member) : Set.of(member)));
+            persist(registration(event, attendee));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportAll(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(ROWS, written);
+        assertEquals(ROWS, lines.length);
+        for (String line : lines) {
+            JsonNode status = objectMapper.readTree(line);
+            int attendee = Integer.parseInt(
+                    status.at("/user/username").asText().substring("attendee".length()));
+            assertEquals(attendee % 2 == 0 ? 2 : 1, status.at("/user/roles").size(), line);
+            assertEquals(2, status.at("/event/organizer/roles").size(), line);
+        }
+        // the cursor and one role query per chunk
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(RoleType name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static User user(String username, Set<Role> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setFirstName("Test");
+        user.setLastName("Smith");
+        user.setRegistrationDate(LocalDateTime.now());
+        user.setRoles(roles);
+        return user;
+    }
+
+    private static Event event(User organizer) {
+        Event event = new Event();
+        event.setTitle("Event");
+        event.setEventDate(LocalDateTime.now().plusDays(1));
+        event.setOrganizer(organizer);
+        return event;
+    }
+
+    private static RegistrationStatus registration(Event event, User user) {
+        RegistrationStatus registration = new RegistrationStatus();
+        registration.setEvent(event);
+        registration.setUser(user);
+        registration.setStatus(RegistrationStatusType.CONFIRMED);
+        registration.setStatusDate(LocalDateTime.now());
+        return registration;
+    }
+}
@@ -0,0 +1,145 @@
+package me.bsuir.easyattend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.bsuir.easyattend.dto.get.EventAttendeeDto;
+import me.bsuir.easyattend.dto.get.EventGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.get.UserGetDto;
+import me.bsuir.easyattend.dto.projection.EventProjection;
+import me.bsuir.easyattend.dto.projection.RegistrationStatusProjection;
+import me.bsuir.easyattend.dto.projection.UserProjection;
+import me.bsuir.easyattend.mapper.RegistrationStatusMapper;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.model.RoleType;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationStatusExportServiceTest {
+
+    @Mock
+    private RegistrationStatusRepository registrationStatusRepository;
+
+    @Mock
+    private RegistrationStatusMapper registrationStatusMapper;
+
+    @Mock
+    private RoleService roleService;
+
+    private RegistrationStatusExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new RegistrationStatusExportService(
+                registrationStatusRepository,
+                registrationStatusMapper,
+                roleService,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void exportAll_WritesOneJsonObjectPerLine_WithRoles() throws Exception {
+        when(registrationStatusRepository.streamAll())
+                .thenReturn(Stream.of(status(1L), status(2L)));
+        when(registrationStatusMapper.toDto(any(RegistrationStatusProjection.class)))
+                .thenAnswer(invocation -> dto(invocation.getArgument(0)));
+        stubRoles();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportAll(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals(2, new ObjectMapper().readTree(lines[1]).get("id").asLong());
+        assertEquals("ADMIN", first.at("/user/roles/0/name").asText());
+        assertEquals("ADMIN", first.at("/event/organizer/roles/0/name").asText());
+    }
+
+    @Test
+    void exportAll_ReadsRolesOncePerChunk_AndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        long rows = RegistrationStatusExportService.CHUNK_SIZE * 2L + 1;
+        when(registrationStatusRepository.streamAll()).thenReturn(
+                LongStream.rangeClosed(1, rows).mapToObj(this::status)
+                        .onClose(() -> closed.set(true)));
+        when(registrationStatusMapper.toDto(any(RegistrationStatusProjection.class)))
+                .thenAnswer(invocation -> dto(invocation.getArgument(0)));
+        stubRoles();
+
+        long written = exportService.exportAll(new ByteArrayOutputStream());
+
+        assertEquals(rows, written);
+        verify(roleService, times(3)).getRolesByUserIds(any());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportAttendees_WritesOneAttendeePerLine_AndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(registrationStatusRepository.streamAttendees(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(Stream.of(
+                        new EventAttendeeDto(1L, "first", "John", "Doe"),
+                        new EventAttendeeDto(2L, "second", "Jane", "Doe"))
+                        .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.exportAttendees(1L, RegistrationStatusType.CONFIRMED, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertTrue(lines[0].contains("\"username\":\"first\""));
+        assertTrue(lines[1].contains("\"username\":\"second\""));
+        assertTrue(closed.get());
+        verifyNoInteractions(roleService, registrationStatusMapper);
+    }
+
+    private void stubRoles() {
+        RoleGetDto admin = new RoleGetDto();
+        admin.setName(RoleType.ADMIN);
+        when(roleService.getRolesByUserIds(any())).thenAnswer(invocation -> invocation
+                .<Collection<Long>>getArgument(0).stream()
+                .collect(Collectors.toMap(Function.identity(), id -> Set.of(admin))));
+    }
+
+    private RegistrationStatusProjection status(long id) {
+        UserProjection organizer = new UserProjection(1L, "organizer", null, null, null, null, 0L);
+        UserProjection user = new UserProjection(100 + id, "user" + id, null, null, null, null, 0L);
+        EventProjection event = new EventProjection(
+                7L, "Event", null, null, null, null, 0, 0, organizer);
+        return new RegistrationStatusProjection(
+                id, RegistrationStatusType.CONFIRMED, null, 0, event, user);
+    }
+
+    private RegistrationStatusGetDto dto(RegistrationStatusProjection status) {
+        RegistrationStatusGetDto dto = new RegistrationStatusGetDto();
+        dto.setId(status.id());
+        dto.setStatus("CONFIRMED");
+        dto.setUser(new UserGetDto());
+        dto.setEvent(new EventGetDto());
+        dto.getEvent().setOrganizer(new UserGetDto());
+        return dto;
+    }
+}
@@ -1,9 +1,11 @@
 package me.bsuir.easyattend.service;
 
 import me.bsuir.easyattend.dto.create.RegistrationStatusCreateDto;
+import me.bsuir.easyattend.dto.create.RegistrationStatusPatchDto;
 import me.bsuir.easyattend.dto.get.ConfirmedUserDto;
 import me.bsuir.easyattend.dto.get.EventGetDto;
 import me.bsuir.easyattend.dto.get.RegistrationStatusGetDto;
+import me.bsuir.easyattend.dto.get.RegistrationStatusRefDto;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
 import me.bsuir.easyattend.mapper.EventMapper;
 import me.bsuir.easyattend.mapper.RegistrationStatusMapper;
@@ -14,26 +16,35 @@ import me.bsuir.easyattend.model.User;
 import me.bsuir.easyattend.repository.EventRepository;
 import me.bsuir.easyattend.repository.RegistrationStatusRepository;
 import me.bsuir.easyattend.repository.UserRepository;
+import me.bsuir.easyattend.utils.EventLastNameKey;
 import me.bsuir.easyattend.utils.InMemoryCache;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class RegistrationStatusServiceTest {
 
+    private static final LocalDateTime STATUS_DATE = LocalDateTime.of(2025, 5, 2, 10, 0);
+
     @Mock
     private RegistrationStatusRepository registrationStatusRepository;
 
@@ -50,9 +61,24 @@ class RegistrationStatusServiceTest {
     private EventMapper eventMapper;
 
     @Mock
-    private InMemoryCache<String, Object> inMemoryCache;
+    private InMemoryCache<EventLastNameKey, List<RegistrationStatusGetDto>>
+            filteredRegistrationStatusesCache;
+
+    @Mock
+    private InMemoryCache<EventLastNameKey, List<ConfirmedUserDto>> confirmedUsersCache;
+
+    @Mock
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    @Mock
+    private MissingIdCache missingIdCache;
+
+    @Mock
+    private SeatAllocator seatAllocator;
+
+    @Mock
+    private IdempotencyCache idempotencyCache;
 
-    @InjectMocks
     private RegistrationStatusService registrationStatusService;
 
     private RegistrationStatus registrationStatus;
@@ -65,6 +91,20 @@ class RegistrationStatusServiceTest {
 
     @BeforeEach
     void setUp() {
+        // two caches share a raw type, so @InjectMocks could not tell them apart
+        registrationStatusService = new RegistrationStatusService(
+                registrationStatusRepository,
+                registrationStatusMapper,
+                eventRepository,
+                userRepository,
+                eventMapper,
+                filteredRegistrationStatusesCache,
+                confirmedUsersCache,
+                registrationCacheInvalidator,
+                missingIdCache,
+                seatAllocator,
+                idempotencyCache);
+
         event = new Event();
         event.setId(1L);
 
@@ -100,9 +140,9 @@ class RegistrationStatusServiceTest {
 
     @Test
     void getRegistrationStatusesByEventIdAndUserLastName_CacheHit() {
-        String cacheKey = "registrationStatus:filtered:eventId=1,lastName=Smith";
+        EventLastNameKey cacheKey = new EventLastNameKey(1L, "Smith");
         List<RegistrationStatusGetDto> cachedDtos = Arrays.asList(registrationStatusGetDto);
-        when(inMemoryCache.get(cacheKey)).thenReturn(cachedDtos);
+        when(filteredRegistrationStatusesCache.get(eq(cacheKey), eq(1L), any())).thenReturn(cachedDtos);
 
         List<RegistrationStatusGetDto> result = registrationStatusService
                 .getRegistrationStatusesByEventIdAndUserLastName(1L, "Smith");
@@ -110,17 +150,20 @@ class RegistrationStatusServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(registrationStatusGetDto, result.get(0));
-        verify(inMemoryCache).get(cacheKey);
+        verify(filteredRegistrationStatusesCache).get(eq(cacheKey), eq(1L), any());
         verifyNoInteractions(registrationStatusRepository, registrationStatusMapper);
     }
 
     @Test
     void getRegistrationStatusesByEventIdAndUserLastName_CacheMiss() {
-        String cacheKey = "registrationStatus:filtered:eventId=1,lastName=Smith";
+        EventLastNameKey cacheKey = new EventLastNameKey(1L, "Smith");
         List<RegistrationStatus> statuses = Arrays.asList(registrationStatus);
         List<RegistrationStatusGetDto> dtos = Arrays.asList(registrationStatusGetDto);
 
-        when(inMemoryCache.get(cacheKey)).thenReturn(null);
+        when(filteredRegistrationStatusesCache.get(eq(cacheKey), eq(1L), any()))
+                .thenAnswer(invocation -> invocation
+                        .<Function<EventLastNameKey, List<RegistrationStatusGetDto>>>getArgument(2)
+                        .apply(cacheKey));
         when(registrationStatusRepository.findByEventIdAndUserLastName(1L, "Smith")).thenReturn(statuses);
         when(registrationStatusMapper.toDto(registrationStatus)).thenReturn(registrationStatusGetDto);
 
@@ -130,10 +173,9 @@ class RegistrationStatusServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(registrationStatusGetDto, result.get(0));
-        verify(inMemoryCache).get(cacheKey);
+        verify(filteredRegistrationStatusesCache).get(eq(cacheKey), eq(1L), any());
         verify(registrationStatusRepository).findByEventIdAndUserLastName(1L, "Smith");
         verify(registrationStatusMapper).toDto(registrationStatus);
-        verify(inMemoryCache).put(cacheKey, dtos);
     }
 
     @Test
@@ -195,55 +237,348 @@ class RegistrationStatusServiceTest {
 
     @Test
     void createRegistrationStatus_Success() {
-        when(registrationStatusMapper.toEntity(registrationStatusCreateDto)).thenReturn(registrationStatus);
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(registrationStatusRepository.save(any(RegistrationStatus.class))).thenReturn(registrationStatus);
-        when(registrationStatusMapper.toDto(registrationStatus)).thenReturn(registrationStatusGetDto);
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED"))
+                .thenReturn(Optional.of(upsert(true, null, null)));
+        when(seatAllocator.claim(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(RegistrationStatusType.CONFIRMED);
 
-        RegistrationStatusGetDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto);
+        RegistrationStatusRefDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null);
 
-        assertNotNull(result);
         assertEquals(1L, result.getId());
+        assertEquals(1L, result.getEventId());
+        assertEquals(1L, result.getUserId());
         assertEquals(RegistrationStatusType.CONFIRMED.name(), result.getStatus());
-        verify(registrationStatusMapper).toEntity(registrationStatusCreateDto);
-        verify(eventRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(registrationStatusRepository).save(registrationStatus);
-        verify(registrationStatusMapper).toDto(registrationStatus);
+        assertEquals(STATUS_DATE, result.getStatusDate());
+        verifyNoInteractions(eventRepository, userRepository, registrationStatusMapper);
+        verify(registrationStatusRepository, never()).updateStatus(any(), any(), any());
+        verify(missingIdCache).created(RegistrationStatus.class, 1L);
+        verify(registrationCacheInvalidator).registrationChanged(1L, "Smith");
+    }
+
+    @Test
+    void createRegistrationStatus_Repeated_ChangesNothing() {
+        RegistrationStatusRefDto existing = refDto(RegistrationStatusType.CONFIRMED);
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED")).thenReturn(Optional.empty());
+        when(registrationStatusRepository.findRefByEventIdAndUserId(1L, 1L))
+                .thenReturn(Optional.of(existing));
+
+        RegistrationStatusRefDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null);
+
+        assertSame(existing, result);
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator, missingIdCache);
+    }
+
+    @Test
+    void createRegistrationStatus_UnknownEvent_NotFound() {
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED"))
+                .thenThrow(violation(RegistrationStatus.FK_EVENT));
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null));
+        assertEquals("Event not found with id 1", e.getMessage());
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void createRegistrationStatus_UnknownUser_NotFound() {
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED"))
+                .thenThrow(violation(RegistrationStatus.FK_USER));
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null));
+        assertEquals("User not found with id 1", e.getMessage());
+    }
+
+    @Test
+    void createRegistrationStatus_CancellingConfirmed_ReleasesSeat() {
+        registrationStatusCreateDto.setStatus(RegistrationStatusType.CANCELLED.name());
+        when(registrationStatusRepository.upsert(1L, 1L, "CANCELLED"))
+                .thenReturn(Optional.of(upsert(false, "CONFIRMED", LocalDateTime.now())));
+
+        registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null);
+
+        verify(seatAllocator).release(1L, 1);
+        verify(seatAllocator, never()).claim(any(), any());
+        verifyNoInteractions(missingIdCache);
+    }
+
+    @Test
+    void createRegistrationStatus_EventFull_GoesToWaitingList() {
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED"))
+                .thenReturn(Optional.of(upsert(true, null, null)));
+        when(seatAllocator.claim(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(RegistrationStatusType.WAITING_LIST);
+
+        RegistrationStatusRefDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null);
+
+        assertEquals(RegistrationStatusType.WAITING_LIST.name(), result.getStatus());
+        verify(registrationStatusRepository)
+                .updateStatus(eq(1L), eq(RegistrationStatusType.WAITING_LIST), any());
+    }
+
+    @Test
+    void createRegistrationStatus_StillFull_KeepsPlaceInQueue() {
+        LocalDateTime queuedAt = LocalDateTime.of(2025, 5, 1, 12, 0);
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED"))
+                .thenReturn(Optional.of(upsert(false, "WAITING_LIST", queuedAt)));
+        when(seatAllocator.claim(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(RegistrationStatusType.WAITING_LIST);
+
+        RegistrationStatusRefDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, null);
+
+        assertEquals(queuedAt, result.getStatusDate());
+        verify(registrationStatusRepository)
+                .updateStatus(1L, RegistrationStatusType.WAITING_LIST, queuedAt);
+        verify(seatAllocator, never()).release(any(), anyInt());
+    }
+
+    @Test
+    void createRegistrationStatus_KnownIdempotencyKey_ReturnsFirstResponse() {
+        RegistrationStatusRefDto firstResponse = refDto(RegistrationStatusType.CONFIRMED);
+        when(idempotencyCache.find("key-1", registrationStatusCreateDto)).thenReturn(firstResponse);
+
+        RegistrationStatusRefDto result = registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, "key-1");
+
+        assertSame(firstResponse, result);
+        verifyNoInteractions(registrationStatusRepository, seatAllocator);
+    }
+
+    @Test
+    void createRegistrationStatus_NewIdempotencyKey_RemembersResponse() {
+        RegistrationStatusRefDto existing = refDto(RegistrationStatusType.CONFIRMED);
+        when(registrationStatusRepository.upsert(1L, 1L, "CONFIRMED")).thenReturn(Optional.empty());
+        when(registrationStatusRepository.findRefByEventIdAndUserId(1L, 1L))
+                .thenReturn(Optional.of(existing));
+
+        registrationStatusService.createRegistrationStatus(registrationStatusCreateDto, "key-1");
+
+        verify(idempotencyCache).remember("key-1", registrationStatusCreateDto, existing);
     }
 
     @Test
     void updateRegistrationStatus_Success() {
-        when(registrationStatusRepository.findById(1L)).thenReturn(Optional.of(registrationStatus));
-        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        doNothing().when(registrationStatusMapper).updateRegistrationStatusFromDto(registrationStatusCreateDto, registrationStatus);
-        when(registrationStatusRepository.save(registrationStatus)).thenReturn(registrationStatus);
-        when(registrationStatusMapper.toDto(registrationStatus)).thenReturn(registrationStatusGetDto);
+        RegistrationStatusRefDto refDto = refDto(RegistrationStatusType.CONFIRMED);
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
+        when(registrationStatusMapper.toRefDto(registrationStatus)).thenReturn(refDto);
+
+        RegistrationStatusRefDto result = registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+
+        assertSame(refDto, result);
+        verify(registrationStatusRepository).findWithUserById(1L);
+        verify(registrationStatusRepository).saveAndFlush(registrationStatus);
+        verifyNoInteractions(eventRepository, userRepository, seatAllocator);
+        // once for the previous and once for the new (event, last name) pair
+        verify(registrationCacheInvalidator, times(2)).registrationChanged(1L, "Smith");
+    }
 
-        RegistrationStatusGetDto result = registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+    @Test
+    void updateRegistrationStatus_CancellingConfirmed_ReleasesSeat() {
+        registrationStatusCreateDto.setStatus(RegistrationStatusType.CANCELLED.name());
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
 
-        assertNotNull(result);
-        assertEquals(1L, result.getId());
-        assertEquals(RegistrationStatusType.CONFIRMED.name(), result.getStatus());
-        verify(registrationStatusRepository).findById(1L);
-        verify(eventRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(registrationStatusMapper).updateRegistrationStatusFromDto(registrationStatusCreateDto, registrationStatus);
-        verify(registrationStatusRepository).save(registrationStatus);
-        verify(registrationStatusMapper).toDto(registrationStatus);
+        registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+
+        assertEquals(RegistrationStatusType.CANCELLED, registrationStatus.getStatus());
+        verify(seatAllocator).release(1L, 1);
+        verify(seatAllocator, never()).claim(any(), any());
+    }
+
+    @Test
+    void updateRegistrationStatus_ConfirmingPending_ClaimsSeat() {
+        registrationStatus.setStatus(RegistrationStatusType.PENDING);
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
+        when(seatAllocator.claim(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(RegistrationStatusType.WAITING_LIST);
+
+        registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+
+        assertEquals(RegistrationStatusType.WAITING_LIST, registrationStatus.getStatus());
+        verify(seatAllocator, never()).release(any(), anyInt());
+    }
+
+    @Test
+    void updateRegistrationStatus_MovedToOtherUser_AttachesReference() {
+        User other = new User();
+        other.setId(2L);
+        registrationStatusCreateDto.setUserId(2L);
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
+        when(userRepository.getReferenceById(2L)).thenReturn(other);
+
+        registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+
+        assertSame(other, registrationStatus.getUser());
+        verify(userRepository, never()).findById(any());
+        // the new user's last name is not loaded, so the whole event is evicted
+        verify(registrationCacheInvalidator).registrationChanged(1L, null);
+    }
+
+    @Test
+    void updateRegistrationStatus_UnknownEvent_NotFound() {
+        registrationStatusCreateDto.setEventId(2L);
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
+        when(eventRepository.getReferenceById(2L)).thenReturn(new Event());
+        when(registrationStatusRepository.saveAndFlush(registrationStatus))
+                .thenThrow(violation(RegistrationStatus.FK_EVENT));
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto));
+        assertEquals("Event not found with id 2", e.getMessage());
+    }
+
+    @Test
+    void updateRegistrationStatus_SameStatus_KeepsStatusDate() {
+        LocalDateTime statusDate = registrationStatus.getStatusDate();
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.of(registrationStatus));
+
+        registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto);
+
+        assertEquals(statusDate, registrationStatus.getStatusDate());
+    }
+
+    @Test
+    void patchRegistrationStatus_ChangesStatusWithoutLoading() {
+        when(registrationStatusRepository.changeStatus(1L, "CANCELLED", 3L))
+                .thenReturn(Optional.of(upsert(false, "CONFIRMED", STATUS_DATE)));
+
+        RegistrationStatusRefDto result =
+                registrationStatusService.patchRegistrationStatus(1L, patch("CANCELLED", 3L));
+
+        assertEquals("CANCELLED", result.getStatus());
+        assertEquals(4L, result.getVersion());
+        verify(seatAllocator).release(1L, 1);
+        verify(registrationStatusRepository, never()).findWithUserById(any());
+        verify(registrationStatusRepository, never()).findById(any());
+        verify(registrationCacheInvalidator).registrationChanged(1L, "Smith");
+    }
+
+    @Test
+    void patchRegistrationStatus_EventFull_GoesToWaitingListWithNextVersion() {
+        when(registrationStatusRepository.changeStatus(1L, "CONFIRMED", 3L))
+                .thenReturn(Optional.of(upsert(false, "PENDING", STATUS_DATE)));
+        when(seatAllocator.claim(1L, RegistrationStatusType.CONFIRMED))
+                .thenReturn(RegistrationStatusType.WAITING_LIST);
+
+        RegistrationStatusRefDto result =
+                registrationStatusService.patchRegistrationStatus(1L, patch("CONFIRMED", 3L));
+
+        assertEquals("WAITING_LIST", result.getStatus());
+        assertEquals(5L, result.getVersion());
+        verify(registrationStatusRepository).updateStatus(
+                eq(1L), eq(RegistrationStatusType.WAITING_LIST), any());
+    }
+
+    @Test
+    void patchRegistrationStatus_SameStatus_ReturnsCurrent() {
+        RegistrationStatusRefDto current = refDto(RegistrationStatusType.CONFIRMED);
+        when(registrationStatusRepository.changeStatus(1L, "CONFIRMED", 3L))
+                .thenReturn(Optional.empty());
+        when(registrationStatusRepository.findRefById(1L)).thenReturn(Optional.of(current));
+
+        assertSame(current,
+                registrationStatusService.patchRegistrationStatus(1L, patch("CONFIRMED", 3L)));
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void patchRegistrationStatus_StaleVersion_Conflict() {
+        when(registrationStatusRepository.changeStatus(1L, "CANCELLED", 2L))
+                .thenReturn(Optional.empty());
+        when(registrationStatusRepository.findRefById(1L))
+                .thenReturn(Optional.of(refDto(RegistrationStatusType.CONFIRMED)));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> registrationStatusService.patchRegistrationStatus(1L, patch("CANCELLED", 2L)));
+        verifyNoInteractions(seatAllocator, registrationCacheInvalidator);
+    }
+
+    @Test
+    void patchRegistrationStatus_NotFound() {
+        when(registrationStatusRepository.changeStatus(1L, "CANCELLED", 3L))
+                .thenReturn(Optional.empty());
+        when(registrationStatusRepository.findRefById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> registrationStatusService.patchRegistrationStatus(1L, patch("CANCELLED", 3L)));
+    }
+
+    private static RegistrationStatusPatchDto patch(String status, long version) {
+        RegistrationStatusPatchDto patch = new RegistrationStatusPatchDto();
+        patch.setStatus(status);
+        patch.setVersion(version);
+        return patch;
     }
 
     @Test
     void updateRegistrationStatus_NotFound() {
-        when(registrationStatusRepository.findById(1L)).thenReturn(Optional.empty());
+        when(registrationStatusRepository.findWithUserById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> registrationStatusService.updateRegistrationStatus(1L, registrationStatusCreateDto));
-        verify(registrationStatusRepository).findById(1L);
+        verify(registrationStatusRepository).findWithUserById(1L);
         verifyNoMoreInteractions(eventRepository, userRepository, registrationStatusMapper, registrationStatusRepository);
     }
 
+    private static RegistrationStatusRefDto refDto(RegistrationStatusType status) {
+        return new RegistrationStatusRefDto(1L, 1L, 1L, status.name(), STATUS_DATE, 3L);
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("violated " + constraint,
+                new ConstraintViolationException("violated", new SQLException(), constraint));
+    }
+
+    private static RegistrationStatusRepository.StatusChange upsert(
+            boolean inserted,
+            String previousStatus,
+            LocalDateTime previousStatusDate
+    ) {
+        return new RegistrationStatusRepository.StatusChange() {
+            @Override
+            public Long getId() {
+                return 1L;
+            }
+
+            @Override
+            public Long getEventId() {
+                return 1L;
+            }
+
+            @Override
+            public Long getUserId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDateTime getStatusDate() {
+                return STATUS_DATE;
+            }
+
+            @Override
+            public long getVersion() {
+                return 4L;
+            }
+
+            @Override
+            public boolean isInserted() {
+                return inserted;
+            }
+
+            @Override
+            public String getPreviousStatus() {
+                return previousStatus;
+            }
+
+            @Override
+            public LocalDateTime getPreviousStatusDate() {
+                return previousStatusDate;
+            }
+
+            @Override
+            public String getLastName() {
+                return "Smith";
+            }
+        };
+    }
+
     @Test
     void deleteRegistrationStatus_Success() {
         when(registrationStatusRepository.findById(1L)).thenReturn(Optional.of(registrationStatus));
@@ -252,6 +587,8 @@ class RegistrationStatusServiceTest {
 
         verify(registrationStatusRepository).findById(1L);
         verify(registrationStatusRepository).delete(registrationStatus);
+        verify(registrationCacheInvalidator).registrationChanged(1L, "Smith");
+        verify(seatAllocator).release(1L, 1);
     }
 
     @Test
@@ -261,46 +598,67 @@ class RegistrationStatusServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> registrationStatusService.deleteRegistrationStatus(1L));
         verify(registrationStatusRepository).findById(1L);
         verifyNoMoreInteractions(registrationStatusRepository);
+        verifyNoInteractions(registrationCacheInvalidator);
     }
 
     @Test
     void getEventsByUserId_Success() {
-        List<RegistrationStatus> statuses = Arrays.asList(registrationStatus);
-        List<EventGetDto> dtos = Arrays.asList(eventGetDto);
-
-        when(registrationStatusRepository.findByUserId(1L)).thenReturn(statuses);
+        when(eventRepository.findByAttendeeId(1L, null, null)).thenReturn(List.of(event));
         when(eventMapper.toDto(event)).thenReturn(eventGetDto);
 
-        List<EventGetDto> result = registrationStatusService.getEventsByUserId(1L);
+        List<EventGetDto> result = registrationStatusService.getEventsByUserId(1L, null, null);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(eventGetDto, result.get(0));
-        verify(registrationStatusRepository).findByUserId(1L);
+        verify(eventRepository).findByAttendeeId(1L, null, null);
         verify(eventMapper).toDto(event);
+        verifyNoInteractions(registrationStatusRepository);
+    }
+
+    @Test
+    void getEventsByUserId_PassesDateRange() {
+        LocalDateTime from = LocalDateTime.of(2025, 5, 1, 0, 0);
+        LocalDateTime to = from.plusMonths(1);
+        when(eventRepository.findByAttendeeId(1L, from, to)).thenReturn(List.of());
+
+        assertTrue(registrationStatusService.getEventsByUserId(1L, from, to).isEmpty());
+        verify(eventRepository).findByAttendeeId(1L, from, to);
+    }
+
+    @Test
+    void getEventsByUserId_RejectsEmptyRange() {
+        LocalDateTime from = LocalDateTime.of(2025, 5, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registrationStatusService.getEventsByUserId(1L, from, from));
+        verifyNoInteractions(eventRepository);
     }
 
     @Test
     void getConfirmedUsersByEventIdAndLastName_CacheHit() {
-        String cacheKey = "registrationStatus:confirmedUsers:eventId=1,lastName=Smith";
+        EventLastNameKey cacheKey = new EventLastNameKey(1L, "Smith");
         List<ConfirmedUserDto> cachedDtos = Arrays.asList(confirmedUserDto);
-        when(inMemoryCache.get(cacheKey)).thenReturn(cachedDtos);
+        when(confirmedUsersCache.get(eq(cacheKey), eq(1L), any())).thenReturn(cachedDtos);
 
         List<ConfirmedUserDto> result = registrationStatusService.getConfirmedUsersByEventIdAndLastName(1L, "Smith");
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(confirmedUserDto, result.get(0));
-        verify(inMemoryCache).get(cacheKey);
+        verify(confirmedUsersCache).get(eq(cacheKey), eq(1L), any());
         verifyNoInteractions(registrationStatusRepository);
     }
 
     @Test
     void getConfirmedUsersByEventIdAndLastName_CacheMiss() {
-        String cacheKey = "registrationStatus:confirmedUsers:eventId=1,lastName=Smith";
+        EventLastNameKey cacheKey = new EventLastNameKey(1L, "Smith");
         List<ConfirmedUserDto> dtos = Arrays.asList(confirmedUserDto);
 
-        when(inMemoryCache.get(cacheKey)).thenReturn(null);
+        when(confirmedUsersCache.get(eq(cacheKey), eq(1L), any()))
+                .thenAnswer(invocation -> invocation
+                        .<Function<EventLastNameKey, List<ConfirmedUserDto>>>getArgument(2)
+                        .apply(cacheKey));
         when(registrationStatusRepository.findConfirmedUsersByEventIdAndLastName(1L, "Smith")).thenReturn(dtos);
 
         List<ConfirmedUserDto> result = registrationStatusService.getConfirmedUsersByEventIdAndLastName(1L, "Smith");
@@ -308,8 +666,7 @@ class RegistrationStatusServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(confirmedUserDto, result.get(0));
-        verify(inMemoryCache).get(cacheKey);
+        verify(confirmedUsersCache).get(eq(cacheKey), eq(1L), any());
         verify(registrationStatusRepository).findConfirmedUsersByEventIdAndLastName(1L, "Smith");
-        verify(inMemoryCache).put(cacheKey, dtos);
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package me.bsuir.easyattend.service;
+
+import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.model.Event;
+import me.bsuir.easyattend.model.RegistrationStatusType;
+import me.bsuir.easyattend.repository.EventRepository;
+import me.bsuir.easyattend.repository.RegistrationStatusRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static me.bsuir.easyattend.model.RegistrationStatusType.CONFIRMED;
+import static me.bsuir.easyattend.model.RegistrationStatusType.PENDING;
+import static me.bsuir.easyattend.model.RegistrationStatusType.WAITING_LIST;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatAllocatorTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private RegistrationStatusRepository registrationStatusRepository;
+
+    @Mock
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    @InjectMocks
+    private SeatAllocator seatAllocator;
+
+    @Test
+    void claim_FreeSeat_Confirms() {
+        when(eventRepository.takeSeat(1L)).thenReturn(1);
+
+        assertEquals(CONFIRMED, seatAllocator.claim(1L, CONFIRMED));
+    }
+
+    @Test
+    void claim_EventFull_GoesToWaitingList() {
+        when(eventRepository.takeSeat(1L)).thenReturn(0);
+
+        assertEquals(WAITING_LIST, seatAllocator.claim(1L, CONFIRMED));
+    }
+
+    @Test
+    void claim_OtherStatus_NeedsNoSeat() {
+        assertEquals(PENDING, seatAllocator.claim(1L, PENDING));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void claimAll_GivesFreeSeatsInOrder_AndTakesThemInOneUpdate() {
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(event(3, 1)));
+
+        List<RegistrationStatusType> granted = seatAllocator.claimAll(1L,
+                List.of(CONFIRMED, PENDING, CONFIRMED, CONFIRMED));
+
+        assertEquals(List.of(CONFIRMED, PENDING, CONFIRMED, WAITING_LIST), granted);
+        verify(eventRepository).takeSeats(1L, 2);
+    }
+
+    @Test
+    void claimAll_UnlimitedEvent_ConfirmsEveryone() {
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(event(null, 40)));
+
+        List<RegistrationStatusType> granted = seatAllocator.claimAll(1L,
+                List.of(CONFIRMED, CONFIRMED));
+
+        assertEquals(List.of(CONFIRMED, CONFIRMED), granted);
+        verify(eventRepository).takeSeats(1L, 2);
+    }
+
+    @Test
+    void claimAll_UnknownEvent_Throws() {
+        when(eventRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> seatAllocator.claimAll(1L, List.of(CONFIRMED)));
+        verify(eventRepository, never()).takeSeats(anyLong(), anyInt());
+    }
+
+    @Test
+    void release_PromotesWaitingList_BeforeFreeingSeats() {
+        when(registrationStatusRepository.promoteWaiting(1L, 3)).thenReturn(2);
+
+        seatAllocator.release(1L, 3);
+
+        verify(registrationCacheInvalidator).registrationChanged(1L, null);
+        verify(eventRepository).releaseSeats(1L, 1);
+    }
+
+    @Test
+    void release_EveryoneWaitingPromoted_KeepsCounter() {
+        when(registrationStatusRepository.promoteWaiting(1L, 1)).thenReturn(1);
+
+        seatAllocator.release(1L, 1);
+
+        verify(eventRepository, never()).releaseSeats(anyLong(), anyInt());
+    }
+
+    @Test
+    void seatsAdded_CountsPromotedRegistrations() {
+        when(registrationStatusRepository.promoteWaiting(1L, 5)).thenReturn(2);
+
+        seatAllocator.seatsAdded(1L, 5);
+
+        verify(eventRepository).takeSeats(1L, 2);
+        verify(registrationCacheInvalidator).registrationChanged(1L, null);
+    }
+
+    private static Event event(Integer capacity, int confirmedCount) {
+        Event event = new Event();
+        event.setId(1L);
+        event.setCapacity(capacity);
+        event.setConfirmedCount(confirmedCount);
+        return event;
+    }
+}
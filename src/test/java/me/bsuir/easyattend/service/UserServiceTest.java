@@ -1,9 +1,15 @@
 package me.bsuir.easyattend.service;
 
 import me.bsuir.easyattend.dto.create.UserCreateDto;
+import me.bsuir.easyattend.dto.create.UserPatchDto;
+import me.bsuir.easyattend.dto.get.CursorPage;
 import me.bsuir.easyattend.dto.get.RoleGetDto;
+import me.bsuir.easyattend.dto.get.UserBulkResultDto;
 import me.bsuir.easyattend.dto.get.UserGetDto;
+import me.bsuir.easyattend.dto.projection.UserProjection;
+import me.bsuir.easyattend.exception.DuplicateEntityException;
 import me.bsuir.easyattend.exception.ResourceNotFoundException;
+import me.bsuir.easyattend.exception.ServiceOverloadedException;
 import me.bsuir.easyattend.mapper.RoleMapper;
 import me.bsuir.easyattend.mapper.UserMapper;
 import me.bsuir.easyattend.model.Role;
@@ -11,14 +17,21 @@ import me.bsuir.easyattend.model.RoleType;
 import me.bsuir.easyattend.model.User;
 import me.bsuir.easyattend.repository.RoleRepository;
 import me.bsuir.easyattend.repository.UserRepository;
+import me.bsuir.easyattend.utils.PageCursor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -39,15 +52,28 @@ class UserServiceTest {
     private RoleRepository roleRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private RoleMapper roleMapper;
 
     @Mock
-    private RoleMapper roleMapper;
+    private RegistrationCacheInvalidator registrationCacheInvalidator;
+
+    @Mock
+    private MissingIdCache missingIdCache;
+
+    @Mock
+    private RoleService roleService;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
 
     @InjectMocks
     private UserService userService;
 
     private User testUser;
+    private UserProjection testProjection;
     private UserCreateDto testCreateDto;
     private UserGetDto testGetDto;
     private Role testRole;
@@ -72,6 +98,8 @@ class UserServiceTest {
         testUser.setPassword("encodedPassword");
         testUser.setRegistrationDate(LocalDateTime.now());
         testUser.setRoles(new HashSet<>(Set.of(testRole)));
+        testProjection = new UserProjection(1L, "testuser", null, null, null,
+                testUser.getRegistrationDate(), 0L);
 
         // Setup test UserCreateDto
         testCreateDto = new UserCreateDto();
@@ -88,56 +116,79 @@ class UserServiceTest {
 
     @Test
     void getUserById_ShouldReturnUser_WhenExists() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userMapper.toDto(testUser)).thenReturn(testGetDto);
+        when(userRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(userMapper.toDto(testProjection)).thenReturn(testGetDto);
+        when(roleService.getRolesByUserIds(List.of(1L)))
+                .thenReturn(Map.of(1L, Set.of(testRoleGetDto)));
 
         UserGetDto result = userService.getUserById(1L);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertEquals("testuser", result.getUsername());
-        verify(userRepository).findById(1L);
-        verify(userMapper).toDto(testUser);
+        assertEquals(Set.of(testRoleGetDto), result.getRoles());
+        verify(userRepository).findProjectionById(1L);
+        verify(userRepository, never()).findById(any());
+        verify(userMapper).toDto(testProjection);
     }
 
     @Test
     void getUserById_ShouldThrowException_WhenNotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findProjectionById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
-        verify(userRepository).findById(1L);
+        verify(userRepository).findProjectionById(1L);
+        verify(missingIdCache).markMissing(User.class, 1L);
         verifyNoInteractions(userMapper);
     }
 
     @Test
-    void getAllUsers_ShouldReturnUsersList_WhenUsersExist() {
-        when(userRepository.findAll()).thenReturn(List.of(testUser));
-        when(userMapper.toDto(testUser)).thenReturn(testGetDto);
+    void getUserById_ShouldSkipRepository_WhenKnownMissing() {
+        when(missingIdCache.isMissing(User.class, 1L)).thenReturn(true);
 
-        List<UserGetDto> result = userService.getAllUsers();
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
+        verifyNoInteractions(userRepository);
+    }
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("testuser", result.get(0).getUsername());
-        verify(userRepository).findAll();
-        verify(userMapper).toDto(testUser);
+    @Test
+    void getUsers_ShouldReturnPageWithCursor_WhenMoreUsersExist() {
+        UserProjection next = new UserProjection(2L, "next", null, null, null, null, 0L);
+        when(userRepository.findPageAfter(0L, PageRequest.ofSize(2)))
+                .thenReturn(List.of(testProjection, next));
+        when(userMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        CursorPage<UserGetDto> result = userService.getUsers(null, 1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals("testuser", result.getItems().get(0).getUsername());
+        assertNotNull(result.getNextCursor());
+        verify(userMapper).toDto(testProjection);
+        verify(roleService).getRolesByUserIds(List.of(1L));
     }
 
     @Test
-    void getAllUsers_ShouldReturnEmptyList_WhenNoUsers() {
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
+    void getUsers_ShouldSeekPastCursor() {
+        when(userRepository.findPageAfter(1L, PageRequest.ofSize(2)))
+                .thenReturn(Collections.emptyList());
 
-        List<UserGetDto> result = userService.getAllUsers();
+        CursorPage<UserGetDto> result = userService.getUsers(PageCursor.encode(1L), 1);
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
-        verify(userRepository).findAll();
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
         verifyNoInteractions(userMapper);
     }
 
+    @Test
+    void getUsers_ShouldRejectOversizedPage() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsers(null, PageCursor.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void createUser_ShouldReturnCreatedUser_WithSpecifiedRoles() {
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(roleRepository.findById(1L)).thenReturn(Optional.of(testRole));
         when(userMapper.toEntity(testCreateDto)).thenReturn(testUser);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
@@ -150,19 +201,21 @@ class UserServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(1, result.getRoles().size());
         assertEquals(RoleType.USER, result.getRoles().iterator().next().getName());
-        verify(passwordEncoder).encode("password");
+        verify(passwordHashingService).hash("password");
         verify(roleRepository).findById(1L);
         verify(userMapper).toEntity(testCreateDto);
         verify(userRepository).save(any(User.class));
         verify(userMapper).toDto(testUser);
         verify(roleMapper).toDto(testRole);
+        verify(missingIdCache).created(User.class, 1L);
     }
 
     @Test
     void createUser_ShouldReturnCreatedUser_WithDefaultRole_WhenRoleIdsNull() {
         testCreateDto.setRoleIds(null);
 
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(roleRepository.findByName(RoleType.USER)).thenReturn(Optional.of(testRole));
         when(userMapper.toEntity(testCreateDto)).thenReturn(testUser);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
@@ -175,7 +228,7 @@ class UserServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(1, result.getRoles().size());
         assertEquals(RoleType.USER, result.getRoles().iterator().next().getName());
-        verify(passwordEncoder).encode("password");
+        verify(passwordHashingService).hash("password");
         verify(roleRepository).findByName(RoleType.USER);
         verify(userMapper).toEntity(testCreateDto);
         verify(userRepository).save(any(User.class));
@@ -187,7 +240,8 @@ class UserServiceTest {
     void createUser_ShouldReturnCreatedUser_WithDefaultRole_WhenRoleIdsEmpty() {
         testCreateDto.setRoleIds(Collections.emptySet());
 
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(roleRepository.findByName(RoleType.USER)).thenReturn(Optional.of(testRole));
         when(userMapper.toEntity(testCreateDto)).thenReturn(testUser);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
@@ -200,7 +254,7 @@ class UserServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(1, result.getRoles().size());
         assertEquals(RoleType.USER, result.getRoles().iterator().next().getName());
-        verify(passwordEncoder).encode("password");
+        verify(passwordHashingService).hash("password");
         verify(roleRepository).findByName(RoleType.USER);
         verify(userMapper).toEntity(testCreateDto);
         verify(userRepository).save(any(User.class));
@@ -212,7 +266,8 @@ class UserServiceTest {
     void createUser_ShouldCreateDefaultRole_WhenNotExists() {
         testCreateDto.setRoleIds(null);
 
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(roleRepository.findByName(RoleType.USER)).thenReturn(Optional.empty());
         when(roleRepository.save(any(Role.class))).thenReturn(testRole);
         when(userMapper.toEntity(testCreateDto)).thenReturn(testUser);
@@ -226,7 +281,7 @@ class UserServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(1, result.getRoles().size());
         assertEquals(RoleType.USER, result.getRoles().iterator().next().getName());
-        verify(passwordEncoder).encode("password");
+        verify(passwordHashingService).hash("password");
         verify(roleRepository).findByName(RoleType.USER);
         verify(roleRepository).save(any(Role.class));
         verify(userMapper).toEntity(testCreateDto);
@@ -239,25 +294,36 @@ class UserServiceTest {
     void createUser_ShouldThrowException_WhenRoleNotFound() {
         testCreateDto.setRoleIds(Set.of(999L));
 
-        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(roleRepository.findById(999L)).thenReturn(Optional.empty());
         when(userMapper.toEntity(testCreateDto)).thenReturn(testUser);
 
         assertThrows(ResourceNotFoundException.class, () -> userService.createUser(testCreateDto));
-        verify(passwordEncoder).encode("password");
+        verify(passwordHashingService).hash("password");
         verify(roleRepository).findById(999L);
         verify(userMapper).toEntity(testCreateDto);
         verifyNoMoreInteractions(userRepository, roleMapper);
     }
 
+    @Test
+    void createUser_HashPoolOverloaded_OpensNoTransaction() {
+        when(passwordHashingService.hash("password"))
+                .thenThrow(new ServiceOverloadedException("overloaded"));
+
+        assertThrows(ServiceOverloadedException.class, () -> userService.createUser(testCreateDto));
+        verifyNoInteractions(transactionTemplate, userRepository, roleRepository);
+    }
+
     @Test
     void updateUser_ShouldUpdateUser_WithNewPasswordAndRoles() {
         testCreateDto.setPassword("newpassword");
         testCreateDto.setRoleIds(Set.of(1L));
 
+        runTransactionsInline();
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(roleRepository.findById(1L)).thenReturn(Optional.of(testRole));
-        when(passwordEncoder.encode("newpassword")).thenReturn("newEncodedPassword");
+        when(passwordHashingService.hash("newpassword")).thenReturn("newEncodedPassword");
         doNothing().when(userMapper).updateUserFromDto(testCreateDto, testUser);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userMapper.toDto(testUser)).thenReturn(testGetDto);
@@ -269,7 +335,7 @@ class UserServiceTest {
         assertEquals("testuser", result.getUsername());
         verify(userRepository).findById(1L);
         verify(roleRepository).findById(1L);
-        verify(passwordEncoder).encode("newpassword");
+        verify(passwordHashingService).hash("newpassword");
         verify(userMapper).updateUserFromDto(testCreateDto, testUser);
         verify(userRepository).save(any(User.class));
         verify(userMapper).toDto(testUser);
@@ -280,6 +346,7 @@ class UserServiceTest {
         testCreateDto.setPassword(null);
         testCreateDto.setRoleIds(Set.of(1L));
 
+        runTransactionsInline();
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(roleRepository.findById(1L)).thenReturn(Optional.of(testRole));
         doNothing().when(userMapper).updateUserFromDto(testCreateDto, testUser);
@@ -292,7 +359,7 @@ class UserServiceTest {
         assertEquals(1L, result.getId());
         verify(userRepository).findById(1L);
         verify(roleRepository).findById(1L);
-        verifyNoInteractions(passwordEncoder);
+        verify(passwordHashingService, never()).hash(any());
         verify(userMapper).updateUserFromDto(testCreateDto, testUser);
         verify(userRepository).save(any(User.class));
         verify(userMapper).toDto(testUser);
@@ -303,8 +370,9 @@ class UserServiceTest {
         testCreateDto.setPassword("newpassword");
         testCreateDto.setRoleIds(null);
 
+        runTransactionsInline();
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.encode("newpassword")).thenReturn("newEncodedPassword");
+        when(passwordHashingService.hash("newpassword")).thenReturn("newEncodedPassword");
         doNothing().when(userMapper).updateUserFromDto(testCreateDto, testUser);
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userMapper.toDto(testUser)).thenReturn(testGetDto);
@@ -314,7 +382,7 @@ class UserServiceTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(userRepository).findById(1L);
-        verify(passwordEncoder).encode("newpassword");
+        verify(passwordHashingService).hash("newpassword");
         verify(userMapper).updateUserFromDto(testCreateDto, testUser);
         verify(userRepository).save(any(User.class));
         verify(userMapper).toDto(testUser);
@@ -323,11 +391,115 @@ class UserServiceTest {
 
     @Test
     void updateUser_ShouldThrowException_WhenUserNotFound() {
+        runTransactionsInline();
+        when(passwordHashingService.hash("password")).thenReturn("encodedPassword");
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(1L, testCreateDto));
         verify(userRepository).findById(1L);
-        verifyNoMoreInteractions(userMapper, roleRepository, passwordEncoder, userRepository);
+        verifyNoMoreInteractions(userMapper, roleRepository, userRepository);
+    }
+
+    @Test
+    void patchUser_ShouldUpdateWithoutLoading_AndHashPassword() {
+        UserPatchDto patch = userPatch(3L);
+        patch.setPassword("newPassword");
+        patch.setLastName("Jones");
+        runTransactionsInline();
+        when(passwordHashingService.hash("newPassword")).thenReturn("newHash");
+        when(userRepository.patch(1L, 3L, null, "newHash", null, null, "Jones"))
+                .thenReturn(Optional.of(userPatched("Smith", "Jones")));
+        when(userRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(userMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        assertSame(testGetDto, userService.patchUser(1L, patch));
+
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).save(any());
+        verify(registrationCacheInvalidator).userChanged();
+    }
+
+    @Test
+    void patchUser_SameLastName_KeepsCaches() {
+        UserPatchDto patch = userPatch(3L);
+        patch.setEmail("new@example.com");
+        runTransactionsInline();
+        when(userRepository.patch(1L, 3L, null, null, "new@example.com", null, null))
+                .thenReturn(Optional.of(userPatched("Smith", "Smith")));
+        when(userRepository.findProjectionById(1L)).thenReturn(Optional.of(testProjection));
+        when(userMapper.toDto(testProjection)).thenReturn(testGetDto);
+
+        userService.patchUser(1L, patch);
+
+        verifyNoInteractions(registrationCacheInvalidator);
+        verify(passwordHashingService, never()).hash(any());
+    }
+
+    @Test
+    void patchUser_StaleVersion_Conflict() {
+        UserPatchDto patch = userPatch(2L);
+        patch.setFirstName("Ann");
+        runTransactionsInline();
+        when(userRepository.patch(1L, 2L, null, null, null, "Ann", null))
+                .thenReturn(Optional.empty());
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.patchUser(1L, patch));
+    }
+
+    @Test
+    void patchUser_NotFound() {
+        UserPatchDto patch = userPatch(3L);
+        patch.setFirstName("Ann");
+        runTransactionsInline();
+        when(userRepository.patch(1L, 3L, null, null, null, "Ann", null))
+                .thenReturn(Optional.empty());
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.patchUser(1L, patch));
+    }
+
+    @Test
+    void patchUser_TakenUsername_Duplicate() {
+        UserPatchDto patch = userPatch(3L);
+        patch.setUsername("taken");
+        runTransactionsInline();
+        when(userRepository.patch(1L, 3L, "taken", null, null, null, null))
+                .thenThrow(violation(User.UK_USERNAME));
+
+        assertThrows(DuplicateEntityException.class, () -> userService.patchUser(1L, patch));
+    }
+
+    @Test
+    void patchUser_OtherConstraintViolated_IsNotReportedAsTakenUsername() {
+        UserPatchDto patch = userPatch(3L);
+        patch.setUsername("fresh");
+        runTransactionsInline();
+        DataIntegrityViolationException violation = violation("users_email_not_null");
+        when(userRepository.patch(1L, 3L, "fresh", null, null, null, null)).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> userService.patchUser(1L, patch)));
+    }
+
+    private static UserPatchDto userPatch(long version) {
+        UserPatchDto patch = new UserPatchDto();
+        patch.setVersion(version);
+        return patch;
+    }
+
+    private static UserRepository.Patched userPatched(String previousLastName, String lastName) {
+        return new UserRepository.Patched() {
+            @Override
+            public String getPreviousLastName() {
+                return previousLastName;
+            }
+
+            @Override
+            public String getLastName() {
+                return lastName;
+            }
+        };
     }
 
     @Test
@@ -339,6 +511,7 @@ class UserServiceTest {
 
         verify(userRepository).findById(1L);
         verify(userRepository).delete(testUser);
+        verify(registrationCacheInvalidator).userChanged();
     }
 
     @Test
@@ -351,81 +524,122 @@ class UserServiceTest {
     }
 
     @Test
-    void createUsersBulk_ShouldCreateMultipleUsers() {
-        // Arrange
-        UserCreateDto dto1 = new UserCreateDto();
-        dto1.setUsername("user1");
-        dto1.setPassword("pass1");
-        dto1.setEmail("user1@example.com");
-        dto1.setRoleIds(Set.of(1L));
-
-        UserCreateDto dto2 = new UserCreateDto();
-        dto2.setUsername("user2");
-        dto2.setPassword("pass2");
-        dto2.setEmail("user2@example.com");
-        dto2.setRoleIds(Set.of(1L));
-
-        List<UserCreateDto> dtos = List.of(dto1, dto2);
-
-        User user1 = new User();
-        user1.setId(1L);
-        user1.setUsername("user1");
-        user1.setPassword("encoded1");
-        user1.setEmail("user1@example.com");
-
-        User user2 = new User();
-        user2.setId(2L);
-        user2.setUsername("user2");
-        user2.setPassword("encoded2");
-        user2.setEmail("user2@example.com");
-
-        UserGetDto getDto1 = new UserGetDto();
-        getDto1.setId(1L);
-        getDto1.setUsername("user1");
-        getDto1.setEmail("user1@example.com");
-
-        UserGetDto getDto2 = new UserGetDto();
-        getDto2.setId(2L);
-        getDto2.setUsername("user2");
-        getDto2.setEmail("user2@example.com");
-
-        Role testRole = new Role();
-        testRole.setId(1L);
-        testRole.setName(RoleType.USER);
-
-        RoleGetDto roleGetDto = new RoleGetDto();
-        roleGetDto.setId(1L);
-        roleGetDto.setName(RoleType.USER);
-
-        when(userRepository.findByUsername("user1")).thenReturn(Optional.empty());
-        when(userRepository.findByUsername("user2")).thenReturn(Optional.empty());
+    void createUsersBulk_ShouldReportEachRow_WithSetBasedLookups() {
+        UserCreateDto valid = bulkDto("user1", Set.of(1L));
+        UserCreateDto taken = bulkDto("taken", Set.of(1L));
+        UserCreateDto duplicate = bulkDto("user1", Set.of(1L));
+        UserCreateDto unknownRole = bulkDto("user4", Set.of(9L));
+
+        User user = new User();
+        user.setUsername("user1");
+        UserGetDto userDto = new UserGetDto();
+        userDto.setUsername("user1");
+
+        when(userRepository.findExistingUsernames(Set.of("user1", "taken", "user4")))
+                .thenReturn(List.of("taken"));
+        when(roleRepository.findAllById(Set.of(1L, 9L))).thenReturn(List.of(testRole));
+        when(userMapper.toEntity(valid)).thenReturn(user);
+        when(passwordHashingService.hashAll(List.of("password1"))).thenReturn(List.of("hash1"));
+        runTransactionsInline();
+        when(userRepository.saveAll(List.of(user))).thenAnswer(invocation -> {
+            user.setId(10L);
+            return List.of(user);
+        });
+        when(userMapper.toDto(user)).thenReturn(userDto);
+        when(roleMapper.toDto(testRole)).thenReturn(testRoleGetDto);
 
-        when(roleRepository.findById(1L)).thenReturn(Optional.of(testRole));
+        List<UserBulkResultDto> results =
+                userService.createUsersBulk(List.of(valid, taken, duplicate, unknownRole));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertEquals("hash1", user.getPassword());
+        assertEquals(Set.of(testRole), user.getRoles());
+        assertEquals(Set.of(testRoleGetDto), results.get(0).getUser().getRoles());
+        assertEquals("Username already exists: taken", results.get(1).getError());
+        assertEquals("Username already exists: user1", results.get(2).getError());
+        assertEquals("Role not found with id 9", results.get(3).getError());
+        assertEquals(3, results.get(3).getIndex());
+        verify(missingIdCache).created(User.class, 10L);
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(roleRepository, never()).findById(any());
+        verify(roleRepository, never()).findByName(any());
+        verify(passwordHashingService, never()).hash(any());
+    }
 
-        when(passwordEncoder.encode("pass1")).thenReturn("encoded1");
-        when(passwordEncoder.encode("pass2")).thenReturn("encoded2");
+    @Test
+    void createUsersBulk_ShouldFailOnlyRowsOfChunkThatCouldNotBeSaved() {
+        UserCreateDto dto = bulkDto("user1", null);
+        when(userRepository.findExistingUsernames(Set.of("user1"))).thenReturn(List.of());
+        when(roleRepository.findByName(RoleType.USER)).thenReturn(Optional.of(testRole));
+        when(userMapper.toEntity(dto)).thenReturn(new User());
+        when(passwordHashingService.hashAll(List.of("password1"))).thenReturn(List.of("hash1"));
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
 
-        when(userMapper.toEntity(dto1)).thenReturn(user1);
-        when(userMapper.toEntity(dto2)).thenReturn(user2);
+        List<UserBulkResultDto> results = userService.createUsersBulk(List.of(dto));
 
-        when(userRepository.saveAll(anyList())).thenReturn(List.of(user1, user2));
+        assertFalse(results.get(0).isCreated());
+        assertEquals("Could not be saved: duplicate key", results.get(0).getError());
+        verifyNoInteractions(missingIdCache);
+    }
 
-        when(userMapper.toDto(user1)).thenReturn(getDto1);
-        when(userMapper.toDto(user2)).thenReturn(getDto2);
+    @Test
+    void createUsersBulk_OneRowConflictsInFullChunk_FailsOnlyThatRow() {
+        List<UserCreateDto> dtos = new ArrayList<>();
+        for (int i = 0; i < UserService.BULK_CHUNK_SIZE; i++) {
+            dtos.add(bulkDto("user" + i, Set.of(1L)));
+        }
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of());
+        when(roleRepository.findAllById(Set.of(1L))).thenReturn(List.of(testRole));
+        when(userMapper.toEntity(any(UserCreateDto.class))).thenAnswer(invocation -> {
+            User user = new User();
+            user.setUsername(invocation.<UserCreateDto>getArgument(0).getUsername());
+            return user;
+        });
+        when(passwordHashingService.hashAll(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        runTransactionsInline();
+        // registered concurrently, after the username lookup
+        when(userRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getUsername().equals("user7"))) {
+                throw violation(User.UK_USERNAME);
+            }
+            users.forEach(user -> user.setId(100L + Long.parseLong(
+                    user.getUsername().substring("user".length()))));
+            return users;
+        });
+        when(userMapper.toDto(any(User.class))).thenReturn(new UserGetDto());
+        when(roleMapper.toDto(testRole)).thenReturn(testRoleGetDto);
 
-        when(roleMapper.toDto(testRole)).thenReturn(roleGetDto);
+        List<UserBulkResultDto> results = userService.createUsersBulk(dtos);
 
-        List<UserGetDto> result = userService.createUsersBulk(dtos);
+        assertEquals(UserService.BULK_CHUNK_SIZE - 1,
+                results.stream().filter(UserBulkResultDto::isCreated).count());
+        assertFalse(results.get(7).isCreated());
+        assertEquals("Username already exists: user7", results.get(7).getError());
+        verify(userRepository, times(1 + UserService.BULK_CHUNK_SIZE)).saveAll(any());
+        verify(missingIdCache, times(UserService.BULK_CHUNK_SIZE - 1))
+                .created(eq(User.class), any());
+    }
 
-        assertNotNull(result);
-        assertEquals(2, result.size(), "Should return 2 created users");
+    private UserCreateDto bulkDto(String username, Set<Long> roleIds) {
+        UserCreateDto dto = new UserCreateDto();
+        dto.setUsername(username);
+        dto.setPassword("password1");
+        dto.setEmail(username + "@example.com");
+        dto.setRoleIds(roleIds);
+        return dto;
+    }
 
-        verify(userRepository, times(2)).findByUsername(anyString());
-        verify(userRepository, times(1)).saveAll(anyList());
-        verify(userMapper, times(2)).toEntity(any(UserCreateDto.class));
-        verify(userMapper, times(2)).toDto(any(User.class));
-        verify(passwordEncoder, times(2)).encode(anyString());
-        verify(roleRepository, times(2)).findById(1L);
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("violated " + constraint,
+                new ConstraintViolationException("violated", new SQLException(), constraint));
+    }
 
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 }
\ No newline at end of file
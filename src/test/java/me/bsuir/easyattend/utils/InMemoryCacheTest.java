@@ -0,0 +1,352 @@
+package me.bsuir.easyattend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryCacheTest {
+
+    @Test
+    void put_ThenGet_ReturnsValue() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void evict_RemovesEntry() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("a", "1");
+
+        cache.evict("a");
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void evictGroup_RemovesOnlyEntriesOfThatGroup() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("eventId=1,lastName=A", "x", "eventId=1");
+        cache.put("eventId=1,lastName=B", "y", "eventId=1");
+        cache.put("eventId=10,lastName=A", "z", "eventId=10");
+
+        cache.evictGroup("eventId=1");
+
+        assertNull(cache.get("eventId=1,lastName=A"));
+        assertNull(cache.get("eventId=1,lastName=B"));
+        assertEquals("z", cache.get("eventId=10,lastName=A"));
+    }
+
+    @Test
+    void evictGroup_KeepsKeyRePutUnderAnotherGroup() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("k", "old", "g1");
+        cache.put("k", "new", "g2");
+
+        cache.evictGroup("g1");
+
+        assertEquals("new", cache.get("k"));
+    }
+
+    @Test
+    void clear_KeepsIndexOfKeysPutAfterwards() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("old", "value", "event:1");
+        cache.clear();
+
+        cache.put("new", "value", "event:1");
+        cache.evictGroup("event:1");
+
+        assertNull(cache.get("new"));
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void evictByPattern_RemovesMatchingGroups() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("registrationStatus:filtered:eventId=1,lastName=A", "x",
+                "registrationStatus:filtered:eventId=1");
+        cache.put("registrationStatus:confirmedUsers:eventId=2,lastName=A", "y",
+                "registrationStatus:confirmedUsers:eventId=2");
+
+        cache.evictByPattern("registrationStatus:filtered:");
+
+        assertNull(cache.get("registrationStatus:filtered:eventId=1,lastName=A"));
+        assertEquals("y", cache.get("registrationStatus:confirmedUsers:eventId=2,lastName=A"));
+    }
+
+    @Test
+    void put_BeyondCapacity_EvictsLeastRecentlyUsed() {
+        InMemoryCache<Integer, Integer> cache = new InMemoryCache<>("test", 60_000, 1);
+        cache.put(1, 1);
+
+        cache.put(2, 2);
+
+        assertNull(cache.get(1));
+        assertEquals(2, cache.get(2));
+    }
+
+    @Test
+    void get_AfterTtl_ReturnsNull() throws InterruptedException {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 20, 100);
+        cache.put("a", "1");
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void fifoPolicy_EvictsOldestWrittenEvenIfRead() {
+        InMemoryCache<Integer, Integer> cache =
+                new InMemoryCache<>("test", 60_000, 2, InMemoryCache.EvictionPolicy.FIFO);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.get(1);
+
+        cache.put(3, 3);
+
+        assertNull(cache.get(1));
+        assertEquals(2, cache.get(2));
+        assertEquals(3, cache.get(3));
+    }
+
+    @Test
+    void put_WithEntryTtl_OverridesDefaultTtl() throws InterruptedException {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        cache.put("short", "1", null, 20);
+        cache.put("long", "2");
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("short"));
+        assertEquals("2", cache.get("long"));
+    }
+
+    @Test
+    void expiredEntries_AreRemovedFromGroupIndex() throws InterruptedException {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 20, 100);
+        cache.put("a", "1", "g");
+
+        Thread.sleep(100);
+        cache.put("a", "2");
+        cache.evictGroup("g");
+
+        assertEquals("2", cache.get("a"));
+        cache.close();
+    }
+
+    @Test
+    void getWithLoader_ConcurrentMisses_ShareOneLoad() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.get("k", "g", key -> {
+                    loads.incrementAndGet();
+                    sleep(100);
+                    return "v";
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("v", future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals("v", cache.get("k"));
+    }
+
+    @Test
+    void getWithLoader_LoaderFailure_IsNotCached() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", null, key -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertEquals("v", cache.get("k", null, key -> "v"));
+    }
+
+    @Test
+    void stats_CountHitsMissesAndLoads() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 100);
+
+        cache.get("k", null, key -> "v");
+        cache.get("k", null, key -> "v");
+        cache.get("missing");
+        assertThrows(IllegalStateException.class, () -> cache.get("bad", null, key -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        CacheStats.Snapshot stats = cache.stats();
+        assertEquals("test", stats.name());
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(0.25, stats.hitRate(), 1e-9);
+        assertEquals(1, stats.loadSuccessCount());
+        assertEquals(1, stats.loadFailureCount());
+    }
+
+    @Test
+    void stats_CountRemovalsByCause() {
+        InMemoryCache<Integer, String> cache = new InMemoryCache<>("test", 50, 2);
+
+        cache.put(1, "a");
+        cache.put(1, "b");
+        cache.put(2, "c");
+        cache.put(3, "d");
+        cache.evict(3);
+        sleep(100);
+        cache.get(2);
+        cache.put(4, "e");
+        cache.clear();
+
+        CacheStats.Snapshot stats = cache.stats();
+        assertEquals(0, stats.size());
+        assertEquals(1, stats.evictions().get(CacheStats.RemovalCause.REPLACED));
+        assertEquals(1, stats.evictions().get(CacheStats.RemovalCause.SIZE));
+        assertEquals(1, stats.evictions().get(CacheStats.RemovalCause.EXPIRED));
+        assertEquals(2, stats.evictions().get(CacheStats.RemovalCause.EXPLICIT));
+    }
+
+    @Test
+    void put_OverWeightBudget_EvictsEldestUntilItFits() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 10,
+                InMemoryCache.EvictionPolicy.FIFO, 10, (key, value) -> value.length());
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("c", "cccccc");
+
+        assertNull(cache.get("a"));
+        assertEquals("bbbb", cache.get("b"));
+        assertEquals("cccccc", cache.get("c"));
+        assertEquals(10, cache.stats().weight());
+        assertEquals(1, cache.stats().evictions().get(CacheStats.RemovalCause.SIZE));
+    }
+
+    @Test
+    void put_HeavierThanBudget_IsRejectedAndDropsStaleValue() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 10,
+                InMemoryCache.EvictionPolicy.LRU, 10, (key, value) -> value.length());
+        cache.put("small", "s");
+        cache.put("k", "old");
+
+        cache.put("k", "way too large");
+
+        assertNull(cache.get("k"));
+        assertEquals("s", cache.get("small"));
+        assertEquals(1, cache.stats().rejectedCount());
+        assertEquals(1, cache.stats().weight());
+    }
+
+    @Test
+    void put_HeavierThanSegmentShare_IsCachedWithinRegionBudget() {
+        // 64 entries make four segments, each with a share of 25
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 64,
+                InMemoryCache.EvictionPolicy.LRU, 100, (key, value) -> value.length());
+
+        cache.put("k", "x".repeat(60));
+
+        assertEquals(60, cache.get("k").length());
+        assertEquals(0, cache.stats().rejectedCount());
+        assertEquals(60, cache.stats().weight());
+    }
+
+    @Test
+    void put_HeavyEntriesInOneSegment_StayCachedWithinRegionBudget() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 64,
+                InMemoryCache.EvictionPolicy.LRU, 100, (key, value) -> value.length());
+        // single-letter keys four code points apart share one of the four segments
+        List<String> keys = List.of("a", "e", "i", "m");
+
+        keys.forEach(key -> cache.put(key, key.repeat(20)));
+
+        keys.forEach(key -> assertEquals(key.repeat(20), cache.get(key)));
+        assertEquals(80, cache.stats().weight());
+        assertEquals(0, cache.stats().evictions().get(CacheStats.RemovalCause.SIZE));
+    }
+
+    @Test
+    void put_OverRegionBudget_EvictsFromOtherSegments() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 64,
+                InMemoryCache.EvictionPolicy.LRU, 100, (key, value) -> value.length());
+        cache.put("first", "x".repeat(60));
+
+        cache.put("second", "y".repeat(60));
+
+        assertNull(cache.get("first"));
+        assertEquals(60, cache.get("second").length());
+        assertEquals(60, cache.stats().weight());
+    }
+
+    @Test
+    void put_HeavierThanMaxEntryWeight_IsRejected() {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("test", 60_000, 64,
+                InMemoryCache.EvictionPolicy.LRU, 100, 30, (key, value) -> value.length());
+
+        cache.put("k", "x".repeat(40));
+
+        assertNull(cache.get("k"));
+        assertEquals(1, cache.stats().rejectedCount());
+        assertEquals(0, cache.stats().weight());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void concurrentAccess_DoesNotCorruptState() throws Exception {
+        InMemoryCache<Integer, Integer> cache = new InMemoryCache<>("test", 60_000, 256);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int key = (i + offset) % 1024;
+                    cache.put(key, key, key % 16);
+                    Integer value = cache.get(key);
+                    assertTrue(value == null || value == key);
+                    if (i % 100 == 0) {
+                        cache.evictGroup(key % 16);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        cache.put(1, 1);
+        assertEquals(1, cache.get(1));
+    }
+}
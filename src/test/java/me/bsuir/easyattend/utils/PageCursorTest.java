@@ -0,0 +1,38 @@
+package me.bsuir.easyattend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encode_ThenDecode_ReturnsSortKey() {
+        LocalDateTime date = LocalDateTime.of(2025, 5, 1, 18, 30, 15, 123_000_000);
+
+        String cursor = PageCursor.encode(date, 42L);
+
+        assertEquals(date, PageCursor.decode(cursor, parts -> LocalDateTime.parse(parts[0])));
+        assertEquals(42L, PageCursor.decode(cursor, parts -> Long.valueOf(parts[1])));
+    }
+
+    @Test
+    void decode_MalformedCursor_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode("%%%", parts -> parts[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(PageCursor.encode("x"), parts -> Long.valueOf(parts[0])));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(PageCursor.encode(1L), parts -> parts[1]));
+    }
+
+    @Test
+    void checkPageSize_RejectsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.checkPageSize(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.checkPageSize(PageCursor.MAX_PAGE_SIZE + 1));
+        assertDoesNotThrow(() -> PageCursor.checkPageSize(PageCursor.MAX_PAGE_SIZE));
+    }
+}
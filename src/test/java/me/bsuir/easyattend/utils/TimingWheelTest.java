@@ -0,0 +1,62 @@
+package me.bsuir.easyattend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_FiresEachTimerExactlyOnItsTick() {
+        long start = 1_000;
+        TimingWheel<Long> wheel = new TimingWheel<>(1, start);
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = start + 1 + random.nextInt(i % 2 == 0 ? 100 : 50_000);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long now = start;
+        while (wheel.size() > 0) {
+            long tick = ++now;
+            wheel.advance(tick, deadline -> assertEquals(tick, deadline));
+        }
+    }
+
+    @Test
+    void advance_WithLargeJumps_NeverFiresEarly() {
+        long start = 0;
+        TimingWheel<Long> wheel = new TimingWheel<>(10, start);
+        for (long deadline = 5; deadline < 10_000_000; deadline *= 3) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> fired = new ArrayList<>();
+
+        long now = start;
+        while (wheel.size() > 0) {
+            now += 77_777;
+            long current = now;
+            wheel.advance(current, deadline -> {
+                assertTrue(deadline <= current);
+                fired.add(deadline);
+            });
+        }
+
+        assertEquals(14, fired.size());
+    }
+
+    @Test
+    void schedule_PastDeadline_FiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 1_000);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule("late", 500);
+
+        wheel.advance(1_100, fired::add);
+
+        assertEquals(List.of("late"), fired);
+    }
+}
@@ -0,0 +1,63 @@
+package me.bsuir.easyattend.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionHooksTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void outsideTransaction_RunsRightAway() {
+        TransactionHooks.afterCommit(() -> calls.add("commit"));
+        TransactionHooks.afterCompletion(committed -> calls.add("completion " + committed));
+
+        assertEquals(List.of("commit", "completion true"), calls);
+    }
+
+    @Test
+    void committed_RunsBothHooksAtTheEnd() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> calls.add("commit"));
+        TransactionHooks.afterCompletion(committed -> calls.add("completion " + committed));
+        assertTrue(calls.isEmpty());
+
+        end(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(List.of("commit", "completion true"), calls);
+    }
+
+    @Test
+    void rolledBack_SkipsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionHooks.afterCommit(() -> calls.add("commit"));
+        TransactionHooks.afterCompletion(committed -> calls.add("completion " + committed));
+
+        end(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(List.of("completion false"), calls);
+    }
+
+    private static void end(int status) {
+        List<TransactionSynchronization> synchronizations =
+                TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}